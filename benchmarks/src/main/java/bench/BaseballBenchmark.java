@@ -0,0 +1,79 @@
+package bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class BaseballBenchmark measures loading a random division and deciding
+ * the elimination of every team, one maxflow per team.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseballBenchmark {
+    private static final Class<?> DIVISION = DefaultPackage.type("BaseballElimination");
+    private static final MethodHandle NEW_DIVISION = DefaultPackage.constructor(DIVISION, String.class);
+    private static final MethodHandle IS_ELIMINATED = 
+        DefaultPackage.method(DIVISION, "isEliminated", boolean.class, String.class);
+
+    @Param({ "12", "30", "60" })
+    public int teams;
+
+    private String filename;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        int[][] games = new int[teams][teams];
+        for (int i = 0; i < teams; i++)
+            for (int j = i + 1; j < teams; j++)
+                games[i][j] = games[j][i] = random.nextInt(4);
+        Path path = Files.createTempFile("teams" + teams, ".txt");
+        path.toFile().deleteOnExit();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println(teams);
+            for (int i = 0; i < teams; i++) {
+                int remaining = 0;
+                for (int j = 0; j < teams; j++)
+                    remaining += games[i][j];
+                int wins = 60 + random.nextInt(20);
+                out.print("Team" + i + " " + wins + " " + (162 - wins - remaining) + " " + remaining);
+                for (int j = 0; j < teams; j++)
+                    out.print(" " + games[i][j]);
+                out.println();
+            }
+        }
+        filename = path.toString();
+    }
+
+    @Benchmark
+    public int eliminateAll() throws Throwable {
+        Object division = (Object) NEW_DIVISION.invokeExact(filename);
+        int eliminated = 0;
+        for (int i = 0; i < teams; i++)
+            if ((boolean) IS_ELIMINATED.invokeExact(division, "Team" + i)) eliminated++;
+        return eliminated;
+    }
+}
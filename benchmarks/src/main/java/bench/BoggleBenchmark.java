@@ -0,0 +1,69 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.In;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class BoggleBenchmark measures the boards solved per second against a
+ * dictionary. The dictionary is read from the file named by the system
+ * property boggle.dictionary, or generated with English letter frequencies.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoggleBenchmark {
+    private static final Class<?> BOARD  = DefaultPackage.type("BoggleBoard");
+    private static final Class<?> SOLVER = DefaultPackage.type("BoggleSolver");
+    private static final MethodHandle NEW_BOARD = 
+        DefaultPackage.constructor(BOARD, int.class, int.class, Random.class);
+    private static final MethodHandle NEW_SOLVER = DefaultPackage.constructor(SOLVER, String[].class);
+    private static final MethodHandle SOLVE = 
+        DefaultPackage.method(SOLVER, "getAllValidWords", Iterable.class, BOARD);
+    private static final int BOARDS = 256;
+
+    @Param({ "4", "5", "8" })
+    public int side;
+
+    private Object solver;
+    private Object[] boards;
+    private int next;
+
+    @Setup
+    public void setup() throws Throwable {
+        String path = System.getProperty("boggle.dictionary");
+        String[] dictionary = path == null 
+                            ? Corpora.dictionary(200_000) 
+                            : new In(path).readAllStrings();
+        solver = (Object) NEW_SOLVER.invokeExact(dictionary);
+        Random random = new Random(42);
+        boards = new Object[BOARDS];
+        for (int i = 0; i < BOARDS; i++)
+            boards[i] = (Object) NEW_BOARD.invokeExact(side, side, random);
+    }
+
+    @Benchmark
+    public Iterable<?> solve() throws Throwable {
+        Object board = boards[next++ & (BOARDS - 1)];
+        return (Iterable<?>) SOLVE.invokeExact(solver, board);
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class BurrowsBenchmark measures circular suffix array construction for
+ * each engine. Move-to-front, which has no engine, is measured by 
+ * MoveToFrontBenchmark.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BurrowsBenchmark {
+    private static final Class<?> CSA = DefaultPackage.type("CircularSuffixArray");
+    private static final Class<?> ENGINE = DefaultPackage.type("CircularSuffixArray$Engine");
+    private static final MethodHandle NEW_CSA = 
+        DefaultPackage.constructor(CSA, byte[].class, int.class, int[].class, ENGINE);
+
+    @Param({ "text", "log", "random" })
+    public String corpus;
+
+    @Param({ "1048576" })
+    public int size;
+
+    @Param({ "QUICKSORT", "SAIS", "HARDENED" })
+    public String engine;
+
+    private byte[] data;
+    private int[] index;
+    private Object engineConstant;
+
+    @Setup
+    public void setup() throws Throwable {
+        data = Corpora.generate(corpus, size);
+        index = new int[size];
+        engineConstant = DefaultPackage.constant(ENGINE, engine);
+    }
+
+    @Benchmark
+    public Object circularSuffixArray() throws Throwable {
+        return (Object) NEW_CSA.invokeExact(data, size, index, engineConstant);
+    }
+}
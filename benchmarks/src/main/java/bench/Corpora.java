@@ -0,0 +1,77 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * The class Corpora generates the deterministic inputs of the benchmarks.
+ *
+ * @author Karthikeyan
+ */
+final class Corpora {
+    private static final String[] WORDS = {
+        "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "as", "was",
+        "with", "be", "by", "on", "not", "he", "this", "are", "or", "his", "from",
+        "at", "which", "but", "have", "an", "had", "they", "you", "were", "their",
+        "one", "all", "we", "can", "her", "has", "there", "been", "if", "more",
+        "when", "will", "would", "who", "so", "no", "suffix", "array", "block",
+        "transform", "seam", "energy", "picture", "trie", "board", "graph"
+    };
+    private static final String[] LEVELS = { "INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR" };
+
+    private Corpora() { }
+
+    // returns n bytes of the named corpus: random, text or log
+    static byte[] generate(String corpus, int n) {
+        Random random = new Random(42);
+        switch (corpus) {
+            case "random":
+                byte[] bytes = new byte[n];
+                random.nextBytes(bytes);
+                return bytes;
+            case "text":
+                return fill(n, random, sb -> {
+                    // Zipf-like word choice, short sentences
+                    int words = 5 + random.nextInt(15);
+                    for (int i = 0; i < words; i++) {
+                        int w = (int) (WORDS.length * Math.pow(random.nextDouble(), 2));
+                        sb.append(WORDS[w]).append(i == words - 1 ? ".\n" : " ");
+                    }
+                });
+            case "log":
+                long[] clock = { 1_700_000_000_000L };
+                return fill(n, random, sb -> {
+                    clock[0] += random.nextInt(50);
+                    sb.append(clock[0]).append(' ').append(LEVELS[random.nextInt(LEVELS.length)])
+                      .append(" worker-").append(random.nextInt(8))
+                      .append(" request handled in ").append(random.nextInt(500)).append(" ms\n");
+                });
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + corpus);
+        }
+    }
+
+    // appends lines until n bytes are written
+    private static byte[] fill(int n, Random random, Consumer<StringBuilder> line) {
+        StringBuilder sb = new StringBuilder(n + 256);
+        while (sb.length() < n)
+            line.accept(sb);
+        sb.setLength(n);
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // returns n random upper case words of 3 to 10 letters
+    static String[] dictionary(int n) {
+        Random random = new Random(42);
+        String letters = "EEEEEEEEEEEETTTTTTTTTAAAAAAAAOOOOOOOIIIIIIINNNNNNNSSSSSSHHHHHHRRRRRRDDDDLLLLCCCUUUMMMWWFFGGYYPPBVKJXQZ";
+        String[] words = new String[n];
+        for (int i = 0; i < n; i++) {
+            char[] w = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < w.length; j++)
+                w[j] = letters.charAt(random.nextInt(letters.length()));
+            words[i] = new String(w).replace("Q", "QU");
+        }
+        return words;
+    }
+}
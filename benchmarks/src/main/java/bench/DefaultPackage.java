@@ -0,0 +1,72 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The class DefaultPackage looks up constructors and methods of the assignment
+ * classes. They live in the default package, which a named package such as
+ * the JMH generated code cannot import, so the benchmarks call them through
+ * method handles with the default-package types erased to Object. Held in
+ * static final fields, the handles are inlined by the JIT like direct calls.
+ *
+ * @author Karthikeyan
+ */
+final class DefaultPackage {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private DefaultPackage() { }
+
+    // returns the class of the given name
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Missing class " + name, e);
+        }
+    }
+
+    // returns the constant of the given enum type
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static Object constant(Class<?> type, String name) {
+        return Enum.valueOf((Class) type, name);
+    }
+
+    // returns the public constructor with the given parameter types
+    static MethodHandle constructor(Class<?> type, Class<?>... params) {
+        try {
+            return erase(LOOKUP.findConstructor(type, MethodType.methodType(void.class, params)));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing constructor of " + type.getName(), e);
+        }
+    }
+
+    // returns the public instance method with the given signature
+    static MethodHandle method(Class<?> type, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            return erase(LOOKUP.findVirtual(type, name, MethodType.methodType(returnType, params)));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Missing method " + type.getName() + "." + name, e);
+        }
+    }
+
+    // replaces the default-package types of the handle with Object
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++)
+            if (isDefaultPackage(type.parameterType(i))) 
+                type = type.changeParameterType(i, Object.class);
+        if (isDefaultPackage(type.returnType())) 
+            type = type.changeReturnType(Object.class);
+        return handle.asType(type);
+    }
+
+    // returns true if the class is declared in the default package
+    private static boolean isDefaultPackage(Class<?> c) {
+        return !c.isPrimitive() && !c.isArray() && c.getPackageName().isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.Picture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class EnergyBenchmark measures computing the energy of a whole picture
+ * with the scalar and the Vector API engines of SeamCarver.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class EnergyBenchmark {
+    private static final Class<?> CARVER = DefaultPackage.type("SeamCarver");
+    private static final Class<?> ENGINE = DefaultPackage.type("SeamCarver$Engine");
+    private static final MethodHandle NEW_CARVER = DefaultPackage.constructor(CARVER, Picture.class);
+    private static final MethodHandle COMPUTE = 
+        DefaultPackage.method(CARVER, "computeEnergy", ENGINE, ENGINE);
+
+    @Param({ "SCALAR", "VECTOR" })
+    public String engine;
+
+    @Param({ "512x384", "1920x1080", "3840x2160" })
+    public String size;
+
+    private Object carver, engineConstant;
+
+    @Setup
+    public void setup() throws Throwable {
+        int width  = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int height = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        Random random = new Random(42);
+        Picture picture = new Picture(width, height);
+        for (int col = 0; col < width; col++)
+            for (int row = 0; row < height; row++)
+                picture.setRGB(col, row, random.nextInt(0x1000000));
+        carver = (Object) NEW_CARVER.invokeExact(picture);
+        engineConstant = DefaultPackage.constant(ENGINE, engine);
+        if ((Object) COMPUTE.invokeExact(carver, engineConstant) != engineConstant)
+            throw new IllegalStateException(engine + " engine not available");
+    }
+
+    @Benchmark
+    public Object computeEnergy() throws Throwable {
+        return (Object) COMPUTE.invokeExact(carver, engineConstant);
+    }
+}
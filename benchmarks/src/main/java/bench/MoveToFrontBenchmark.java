@@ -0,0 +1,84 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class MoveToFrontBenchmark measures move-to-front encoding and decoding
+ * of the Burrows-Wheeler transform of each corpus.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveToFrontBenchmark {
+    private static final Class<?> CSA = DefaultPackage.type("CircularSuffixArray");
+    private static final Class<?> ENGINE = DefaultPackage.type("CircularSuffixArray$Engine");
+    private static final Class<?> MTF = DefaultPackage.type("MoveToFrontIndex");
+    private static final MethodHandle NEW_CSA = 
+        DefaultPackage.constructor(CSA, byte[].class, int.class, int[].class, ENGINE);
+    private static final MethodHandle INDEX = DefaultPackage.method(CSA, "index", int.class, int.class);
+    private static final MethodHandle NEW_MTF = DefaultPackage.constructor(MTF);
+    private static final MethodHandle RESET  = DefaultPackage.method(MTF, "reset", void.class);
+    private static final MethodHandle ENCODE = DefaultPackage.method(MTF, "encode", int.class, int.class);
+    private static final MethodHandle DECODE = DefaultPackage.method(MTF, "decode", int.class, int.class);
+
+    @Param({ "text", "log", "random" })
+    public String corpus;
+
+    @Param({ "1048576" })
+    public int size;
+
+    private byte[] last, ranks;
+    private Object list;
+
+    @Setup
+    public void setup() throws Throwable {
+        byte[] data = Corpora.generate(corpus, size);
+        list = (Object) NEW_MTF.invokeExact();
+
+        // the last column of the transform, input of move-to-front
+        Object sais = DefaultPackage.constant(ENGINE, "SAIS");
+        Object csa = (Object) NEW_CSA.invokeExact(data, size, new int[size], sais);
+        last = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int start = (int) INDEX.invokeExact(csa, i);
+            last[i] = data[start == 0 ? size - 1 : start - 1];
+        }
+        ranks = moveToFrontEncode();
+    }
+
+    @Benchmark
+    public byte[] moveToFrontEncode() throws Throwable {
+        RESET.invokeExact(list);
+        byte[] out = new byte[size];
+        for (int i = 0; i < size; i++)
+            out[i] = (byte) (int) ENCODE.invokeExact(list, last[i] & 0xff);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] moveToFrontDecode() throws Throwable {
+        RESET.invokeExact(list);
+        byte[] out = new byte[size];
+        for (int i = 0; i < size; i++)
+            out[i] = (byte) (int) DECODE.invokeExact(list, ranks[i] & 0xff);
+        return out;
+    }
+}
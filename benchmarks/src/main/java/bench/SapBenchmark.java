@@ -0,0 +1,94 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.Digraph;
+import edu.princeton.cs.algs4.In;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class SapBenchmark measures shortest ancestral path queries on the
+ * WordNet hypernym graph read from the file named by the system property
+ * wordnet.hypernyms, or on a random rooted digraph of the same shape: every
+ * synset but the root has one or two hypernyms with smaller ids.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SapBenchmark {
+    private static final Class<?> SAP = DefaultPackage.type("SAP");
+    private static final MethodHandle NEW_SAP = DefaultPackage.constructor(SAP, Digraph.class);
+    private static final MethodHandle LENGTH = 
+        DefaultPackage.method(SAP, "length", int.class, int.class, int.class);
+    private static final MethodHandle ANCESTOR = 
+        DefaultPackage.method(SAP, "ancestor", int.class, int.class, int.class);
+    private static final int QUERIES = 1024;
+
+    @Param({ "82192" })
+    public int synsets;
+
+    private Object sap;
+    private int[] v, w;
+    private int next;
+
+    @Setup
+    public void setup() throws Throwable {
+        Random random = new Random(42);
+        String path = System.getProperty("wordnet.hypernyms");
+        Digraph digraph;
+        if (path != null) {
+            String[] lines = new In(path).readAllLines();
+            synsets = lines.length;
+            digraph = new Digraph(synsets);
+            for (String line : lines) {
+                String[] ids = line.split(",");
+                for (int i = 1; i < ids.length; i++)
+                    digraph.addEdge(Integer.parseInt(ids[0]), Integer.parseInt(ids[i]));
+            }
+        }
+        else {
+            digraph = new Digraph(synsets);
+            for (int s = 1; s < synsets; s++) {
+                digraph.addEdge(s, random.nextInt(s));
+                if (random.nextInt(10) == 0) digraph.addEdge(s, random.nextInt(s));
+            }
+        }
+        sap = (Object) NEW_SAP.invokeExact(digraph);
+        v = new int[QUERIES];
+        w = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            v[i] = random.nextInt(synsets);
+            w[i] = random.nextInt(synsets);
+        }
+    }
+
+    @Benchmark
+    public int length() throws Throwable {
+        int i = next++ & (QUERIES - 1);
+        return (int) LENGTH.invokeExact(sap, v[i], w[i]);
+    }
+
+    @Benchmark
+    public int ancestor() throws Throwable {
+        int i = next++ & (QUERIES - 1);
+        return (int) ANCESTOR.invokeExact(sap, v[i], w[i]);
+    }
+}
@@ -0,0 +1,112 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.Picture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class SeamCarverBenchmark measures the seam search of both carvers on
+ * random pictures, and the removal of ten vertical seams from a fresh carver.
+ * Run with -prof gc for the allocation rate and the collections. The handles
+ * of both carvers are static final, so the JIT inlines them, and each 
+ * benchmark picks one with a branch on the carver parameter.
+ *
+ * @author Karthikeyan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeamCarverBenchmark {
+    private static final int SEAMS = 10;
+    private static final Class<?> SC = DefaultPackage.type("SeamCarver");
+    private static final Class<?> DP = DefaultPackage.type("SeamCarverDP");
+    private static final MethodHandle SC_NEW = DefaultPackage.constructor(SC, Picture.class);
+    private static final MethodHandle SC_FIND_VERTICAL = 
+        DefaultPackage.method(SC, "findVerticalSeam", int[].class);
+    private static final MethodHandle SC_FIND_HORIZONTAL = 
+        DefaultPackage.method(SC, "findHorizontalSeam", int[].class);
+    private static final MethodHandle SC_REMOVE_VERTICAL = 
+        DefaultPackage.method(SC, "removeVerticalSeam", void.class, int[].class);
+    private static final MethodHandle DP_NEW = DefaultPackage.constructor(DP, Picture.class);
+    private static final MethodHandle DP_FIND_VERTICAL = 
+        DefaultPackage.method(DP, "findVerticalSeam", int[].class);
+    private static final MethodHandle DP_FIND_HORIZONTAL = 
+        DefaultPackage.method(DP, "findHorizontalSeam", int[].class);
+    private static final MethodHandle DP_REMOVE_VERTICAL = 
+        DefaultPackage.method(DP, "removeVerticalSeam", void.class, int[].class);
+
+    @Param({ "SeamCarver", "SeamCarverDP" })
+    public String carver;
+
+    @Param({ "256x256", "512x384", "1024x768" })
+    public String size;
+
+    private Picture picture;
+    private Object instance;
+    private boolean dp;
+
+    @Setup
+    public void setup() throws Throwable {
+        if (!carver.equals(SC.getName()) && !carver.equals(DP.getName()))
+            throw new IllegalArgumentException("Unknown carver: " + carver);
+        dp = carver.equals(DP.getName());
+
+        int width  = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int height = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        Random random = new Random(42);
+        picture = new Picture(width, height);
+        for (int col = 0; col < width; col++)
+            for (int row = 0; row < height; row++)
+                picture.setRGB(col, row, random.nextInt(0x1000000));
+        instance = construct();
+    }
+
+    @Benchmark
+    public int[] findVerticalSeam() throws Throwable {
+        return findVertical(instance);
+    }
+
+    @Benchmark
+    public int[] findHorizontalSeam() throws Throwable {
+        return dp ? (int[]) DP_FIND_HORIZONTAL.invokeExact(instance)
+                  : (int[]) SC_FIND_HORIZONTAL.invokeExact(instance);
+    }
+
+    @Benchmark
+    public Object removeVerticalSeams() throws Throwable {
+        Object fresh = construct();
+        for (int i = 0; i < SEAMS; i++) {
+            int[] seam = findVertical(fresh);
+            if (dp) DP_REMOVE_VERTICAL.invokeExact(fresh, seam);
+            else    SC_REMOVE_VERTICAL.invokeExact(fresh, seam);
+        }
+        return fresh;
+    }
+
+    // a new carver of the picture
+    private Object construct() throws Throwable {
+        return dp ? (Object) DP_NEW.invokeExact(picture) : (Object) SC_NEW.invokeExact(picture);
+    }
+
+    // the vertical seam of the given carver
+    private int[] findVertical(Object c) throws Throwable {
+        return dp ? (int[]) DP_FIND_VERTICAL.invokeExact(c) : (int[]) SC_FIND_VERTICAL.invokeExact(c);
+    }
+}
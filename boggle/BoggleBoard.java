@@ -0,0 +1,157 @@
+import java.util.Random;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The class BoggleBoard represents an m-by-n grid of upper case letters. The
+ * letter Q stands for the two letters QU. A board is read from a file with the
+ * number of rows and columns followed by the letters, row by row, or filled
+ * with random letters drawn with their frequency in English text.
+ *
+ * @author Karthikeyan
+ */
+public class BoggleBoard {
+    // relative frequencies of the letters A to Z in English text
+    private static final double[] FREQUENCIES = {
+        0.08167, 0.01492, 0.02782, 0.04253, 0.12703, 0.02228, 0.02015, 0.06094,
+        0.06966, 0.00153, 0.00772, 0.04025, 0.02406, 0.06749, 0.07507, 0.01929,
+        0.00095, 0.05987, 0.06327, 0.09056, 0.02758, 0.00978, 0.02360, 0.00150,
+        0.01974, 0.00074
+    };
+    private final char[][] board;
+
+    /**
+     * Initialises a random 4-by-4 board.
+     */
+    public BoggleBoard() {
+        this(4, 4);
+    }
+
+    /**
+     * Initialises a board from the given file.
+     * @param filename the name of the file
+     * @throws IllegalArgumentException if the file has an invalid letter
+     */
+    public BoggleBoard(String filename) {
+        In in = new In(filename);
+        int m = in.readInt();
+        int n = in.readInt();
+        board = new char[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                String letter = in.readString().toUpperCase();
+                if (letter.equals("QU")) board[i][j] = 'Q';
+                else if (letter.length() == 1 && letter.charAt(0) >= 'A' && letter.charAt(0) <= 'Z')
+                    board[i][j] = letter.charAt(0);
+                else throw new IllegalArgumentException("Invalid letter " + letter);
+            }
+        }
+    }
+
+    /**
+     * Initialises a random m-by-n board.
+     * @param m the number of rows
+     * @param n the number of columns
+     * @throws IllegalArgumentException if m or n less than one
+     */
+    public BoggleBoard(int m, int n) {
+        this(m, n, new Random());
+    }
+
+    /**
+     * Initialises a random m-by-n board with the letters drawn from the given
+     * random source, so the same seed gives the same board.
+     * @param m the number of rows
+     * @param n the number of columns
+     * @param random the random source
+     * @throws IllegalArgumentException if m or n less than one or random null
+     */
+    public BoggleBoard(int m, int n, Random random) {
+        if (m < 1 || n < 1 || random == null)
+            throw new IllegalArgumentException("Invalid board dimensions.");
+        board = new char[m][n];
+        for (int i = 0; i < m; i++)
+            for (int j = 0; j < n; j++)
+                board[i][j] = randomLetter(random);
+    }
+
+    /**
+     * Initialises a board with the given letters.
+     * @param a the letters
+     * @throws IllegalArgumentException if a is null, ragged or has an invalid
+     * letter
+     */
+    public BoggleBoard(char[][] a) {
+        if (a == null || a.length == 0 || a[0] == null || a[0].length == 0)
+            throw new IllegalArgumentException("Invalid board.");
+        board = new char[a.length][a[0].length];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == null || a[i].length != a[0].length)
+                throw new IllegalArgumentException("Ragged board.");
+            for (int j = 0; j < a[i].length; j++) {
+                if (a[i][j] < 'A' || a[i][j] > 'Z')
+                    throw new IllegalArgumentException("Invalid letter " + a[i][j]);
+                board[i][j] = a[i][j];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return returns the number of rows
+     */
+    public int rows() {
+        return board.length;
+    }
+
+    /**
+     * Returns the number of columns.
+     * @return returns the number of columns
+     */
+    public int cols() {
+        return board[0].length;
+    }
+
+    /**
+     * Returns the letter in row i and column j; Q represents QU.
+     * @param i the row
+     * @param j the column
+     * @return returns the letter in row i and column j
+     */
+    public char getLetter(int i, int j) {
+        return board[i][j];
+    }
+
+    /**
+     * Returns the board as a string.
+     * @return returns the board as a string
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(rows() + " " + cols() + "\n");
+        for (int i = 0; i < rows(); i++) {
+            for (int j = 0; j < cols(); j++)
+                sb.append(board[i][j] == 'Q' ? "Qu " : board[i][j] + "  ");
+            sb.append('\n');
+        }
+        return sb.toString().trim();
+    }
+
+    // returns a random letter drawn with its English frequency
+    private static char randomLetter(Random random) {
+        double r = random.nextDouble(), sum = 0.0;
+        for (int c = 0; c < FREQUENCIES.length; c++) {
+            sum += FREQUENCIES[c];
+            if (r < sum) return (char) ('A' + c);
+        }
+        return 'E';
+    }
+
+    // test client
+    public static void main(String[] args) {
+        StdOut.println(new BoggleBoard());
+        StdOut.println();
+        StdOut.println(new BoggleBoard(5, 5, new Random(42)));
+    }
+}
@@ -1,20 +1,29 @@
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
 
 /**
  * The class BoggleSolver finds all valid words in a given Boggle board, using a
- * given dictionary.
+ * given dictionary. The dictionary is kept in a PackedTrie. The neighbours of
+ * the cells are computed once per board shape and shared, for the first 64
+ * shapes seen, so the cache stays small however many shapes are solved. The
+ * cells on the current path are a bitmask on boards of up to 64 cells, so a
+ * search allocates only the words it finds. A solver may be shared between
+ * threads.
  * 
  * @author Karthikeyan
  */
 public class BoggleSolver {
     private static final int[] X_DIRECTION = { -1, 0, 1, -1, 1, -1, 0, 1 };
     private static final int[] Y_DIRECTION = { -1, -1, -1, 0, 0, 1, 1, 1 };
-    private final Trie trie = new Trie();
-    private boolean[][] marked;
+    private static final int SHAPES = 64;    // board shapes whose neighbours are cached
+    private static final Map<Long, int[][]> ADJACENCY = new ConcurrentHashMap<>();  // by board shape
+    private final PackedTrie trie;
 
     /**
      * Constructs the BoggleSolver with the given dictionary.
@@ -24,8 +33,10 @@ public class BoggleSolver {
     public BoggleSolver(String[] dictionary) {
         if (dictionary == null)
             throw new IllegalArgumentException("Null values not allowed.");
-        for (String word : dictionary)
-            trie.put(word, score(word));
+        int[] scores = new int[dictionary.length];
+        for (int i = 0; i < dictionary.length; i++)
+            scores[i] = score(dictionary[i]);
+        trie = new PackedTrie(dictionary, scores);
     }
 
     /**
@@ -39,21 +50,17 @@ public class BoggleSolver {
             throw new IllegalArgumentException("Null values not allowed.");
         int n = board.rows();
         int m = board.cols();
-        Set<String> validWords = new HashSet<>();
-        StringBuilder path = new StringBuilder("0");
-        marked = new boolean[n][m];
+        int[][] adjacency = adjacency(n, m);
+        char[] letters = new char[n * m];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < m; j++)
+                letters[i * m + j] = board.getLetter(i, j);
 
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < m; j++) {
-                marked[i][j] = true;
-                char c = board.getLetter(i, j);
-                path.setCharAt(0, c);
-                if (c == 'Q') path.append('U');
-                addValidWords(board, path, i, j, validWords);
-                if (c == 'Q') path.deleteCharAt(1);
-                marked[i][j] = false;
-            }
-        }
+        Set<String> validWords = new HashSet<>();
+        char[] path = new char[2 * n * m];
+        boolean[] marked = letters.length > Long.SIZE ? new boolean[letters.length] : null;
+        for (int cell = 0; cell < letters.length; cell++)
+            addValidWords(letters, adjacency, path, 0, trie.root(), cell, 0L, marked, validWords);
         return validWords;
     }
 
@@ -67,30 +74,54 @@ public class BoggleSolver {
         return validWord(word) ? trie.get(word) : 0;
     }
 
-    // adds all the valid words in the given set
-    private void addValidWords(BoggleBoard board, StringBuilder path, int row, int col, Set<String> validWords) {
-        String word = path.toString();
-        if (!trie.hasPrefix(word)) return;
-        if (trie.contains(word) && word.length() > 2) validWords.add(word);
+    // adds all the valid words of the paths extended by the given cell in
+    // the given set, descending one trie edge from the node of the path; the
+    // cells on the path are the set bits of visited, or the marked cells on
+    // boards of more than 64 cells, where marked is not null
+    private void addValidWords(char[] letters, int[][] adjacency, char[] path, int length, int node, 
+                               int cell, long visited, boolean[] marked, Set<String> validWords) {
+        char c = letters[cell];
+        node = trie.child(node, c);
+        if (node == -1) return;
+        path[length++] = c;
+        if (c == 'Q') path[length++] = 'U';
+        if (length > 2 && trie.isWord(node)) validWords.add(new String(path, 0, length));
 
-        for (int i = 0; i < X_DIRECTION.length; i++) {
-            int x = row + X_DIRECTION[i];
-            int y = col + Y_DIRECTION[i];
-            if (!validIndex(board, x, y) || marked[x][y]) continue;
-            marked[x][y] = true;
-            char c = board.getLetter(x, y);
-            path.append(c);
-            if (c == 'Q') path.append("U");
-            addValidWords(board, path, x, y, validWords);
-            if (c == 'Q') path.deleteCharAt(path.length() - 1);
-            path.deleteCharAt(path.length() - 1);
-            marked[x][y] = false;
+        if (marked == null) visited |= 1L << cell;
+        else                marked[cell] = true;
+        for (int next : adjacency[cell])
+            if (marked == null ? (visited & 1L << next) == 0 : !marked[next])
+                addValidWords(letters, adjacency, path, length, node, next, visited, marked, validWords);
+        if (marked != null) marked[cell] = false;
+    }
+
+    // returns the neighbours of each cell i * cols + j of a rows-by-cols 
+    // board, cached for the first SHAPES shapes and computed for the others
+    private static int[][] adjacency(int rows, int cols) {
+        long shape = (long) rows << 32 | cols;
+        int[][] adjacency = ADJACENCY.get(shape);
+        if (adjacency != null) return adjacency;
+
+        adjacency = new int[rows * cols][];
+        int[] neighbours = new int[X_DIRECTION.length];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int k = 0;
+                for (int d = 0; d < X_DIRECTION.length; d++) {
+                    int x = i + X_DIRECTION[d];
+                    int y = j + Y_DIRECTION[d];
+                    if (validIndex(rows, cols, x, y)) neighbours[k++] = x * cols + y;
+                }
+                adjacency[i * cols + j] = Arrays.copyOf(neighbours, k);
+            }
         }
+        if (ADJACENCY.size() < SHAPES) ADJACENCY.putIfAbsent(shape, adjacency);
+        return adjacency;
     }
 
     // returns true if the given index is valid, else false
-    private boolean validIndex(BoggleBoard board, int x, int y) {
-        return x < board.rows() && x >= 0 && y < board.cols() && y >= 0;
+    private static boolean validIndex(int rows, int cols, int x, int y) {
+        return x < rows && x >= 0 && y < cols && y >= 0;
     }
 
     // returns the score of the given word
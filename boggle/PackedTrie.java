@@ -0,0 +1,253 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The class PackedTrie is an immutable trie of upper case words built once
+ * from its keys. The nodes are numbered in breadth-first order, so the
+ * children of a node are consecutive, and each node is three ints: the set
+ * of letters of its children as a 26-bit mask, the index of its first child
+ * and its value. The child for a letter is the first child plus the number
+ * of smaller letters in the mask. A node takes 12 bytes instead of the more
+ * than 140 bytes of a Trie node with its array of 26 links. The nodes are
+ * ints from root(), so a search can walk the trie one letter at a time with
+ * child and isWord.
+ *
+ * @author Karthikeyan
+ */
+public class PackedTrie {
+    private static final int R = 26;
+    private final int[] mask;    // letters of the children of each node, bit c for 'A' + c
+    private final int[] first;   // index of the first child of each node
+    private final int[] value;   // value of the key of each node, -1 if none
+    private final int n;         // number of keys
+
+    /**
+     * Initialises the trie with the given keys paired with the given values.
+     * A key given twice keeps its last value. The value -1 marks a missing
+     * key, as returned by get, and cannot be paired with a key.
+     * @param keys the keys, upper case words
+     * @param values the values, values[i] paired with keys[i]
+     * @throws IllegalArgumentException if an argument or key is null, the
+     * lengths differ, a key has a letter other than A to Z or a value is -1
+     */
+    public PackedTrie(String[] keys, int[] values) {
+        if (keys == null || values == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("Keys and values differ in length.");
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            if (key == null)
+                throw new IllegalArgumentException("Null key not allowed.");
+            for (int d = 0; d < key.length(); d++)
+                if (key.charAt(d) < 'A' || key.charAt(d) > 'Z')
+                    throw new IllegalArgumentException("Invalid key " + key);
+            if (values[i] == -1)
+                throw new IllegalArgumentException("Invalid value -1 for key " + key);
+        }
+        int[] order = sort(keys);
+
+        // the sorted keys have a node per distinct prefix: the root and one
+        // per letter of each key past its common prefix with the key before
+        int nodes = 1;
+        for (int i = 0; i < order.length; i++) {
+            String key = keys[order[i]];
+            nodes += key.length() - (i == 0 ? 0 : commonPrefix(keys[order[i - 1]], key));
+        }
+
+        // each node is the range of sorted keys with its prefix; the nodes 
+        // are numbered as they are reached in breadth-first order, so the
+        // nodes of depth d follow those of depth d - 1
+        int[] mask  = this.mask  = new int[nodes];
+        int[] first = this.first = new int[nodes];
+        int[] value = this.value = new int[nodes];
+        int[] lo = new int[nodes], hi = new int[nodes];
+        int next = 1, count = 0;
+        hi[0] = order.length;
+        for (int x = 0, d = 0, level = 1; x < nodes; x++) {
+            if (x == level) {
+                d++;
+                level = next;
+            }
+            int i = lo[x];
+            value[x] = -1;
+            for (; i < hi[x] && keys[order[i]].length() == d; i++)
+                value[x] = values[order[i]];
+            if (value[x] != -1) count++;
+
+            first[x] = next;
+            while (i < hi[x]) {
+                char c = keys[order[i]].charAt(d);
+                int j = i + 1;
+                while (j < hi[x] && keys[order[j]].charAt(d) == c)
+                    j++;
+                mask[x] |= 1 << (c - 'A');
+                lo[next] = i;
+                hi[next++] = j;
+                i = j;
+            }
+        }
+        this.n = count;
+    }
+
+    /**
+     * Returns the value of the given key; -1 if not in the trie.
+     * @param key the key
+     * @return returns the value of the given key; -1 if not in the trie
+     */
+    public int get(String key) {
+        int x = node(key);
+        return x == -1 ? -1 : value[x];
+    }
+
+    /**
+     * Returns true if given key is in the trie, else false.
+     * @param key the key to check
+     * @return returns true if key is in the trie, else false
+     */
+    public boolean contains(String key) {
+        return get(key) != -1;
+    }
+
+    /**
+     * Returns true if any key in the trie has the given prefix, else false.
+     * An empty trie has no keys, so it has no prefix, not even "".
+     * @param prefix the prefix to check
+     * @return returns true if any key in the trie has the given prefix, else false
+     */
+    public boolean hasPrefix(String prefix) {
+        return n > 0 && node(prefix) != -1;
+    }
+
+    /**
+     * Returns the root node.
+     * @return returns the root node
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * Returns the child of the node for the given letter, the grandchild for
+     * U after Q for the letter Q, as on a Boggle die; -1 if no key goes on.
+     * @param node the node
+     * @param letter the upper case letter
+     * @throws IllegalArgumentException if node is not a node of the trie
+     * @return returns the child for the letter; -1 if none
+     */
+    public int child(int node, char letter) {
+        if (node < 0 || node >= mask.length)
+            throw new IllegalArgumentException("Invalid node " + node);
+        int x = next(node, letter);
+        if (letter == 'Q' && x != -1) x = next(x, 'U');
+        return x;
+    }
+
+    /**
+     * Returns true if the prefix of the node is a key, else false.
+     * @param node the node
+     * @throws IllegalArgumentException if node is not a node of the trie
+     * @return returns true if the prefix of the node is a key, else false
+     */
+    public boolean isWord(int node) {
+        if (node < 0 || node >= mask.length)
+            throw new IllegalArgumentException("Invalid node " + node);
+        return value[node] != -1;
+    }
+
+    /**
+     * Returns true if empty, else false.
+     * @return returns true if empty, else false
+     */
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    /**
+     * Returns number of keys in the trie.
+     * @return return number of keys in the trie
+     */
+    public int size() {
+        return n;
+    }
+
+    // returns the indices of the keys in sorted order, equal keys in the 
+    // given order, by a bottom-up merge sort
+    private static int[] sort(String[] keys) {
+        int n = keys.length;
+        int[] a = new int[n], aux = new int[n];
+        for (int i = 0; i < n; i++)
+            a[i] = i;
+        for (int len = 1; len < n; len *= 2) {
+            for (int lo = 0; lo < n - len; lo += 2 * len) {
+                int mid = lo + len, hi = Math.min(lo + 2 * len, n);
+                if (keys[a[mid - 1]].compareTo(keys[a[mid]]) <= 0) continue;
+                System.arraycopy(a, lo, aux, lo, hi - lo);
+                for (int i = lo, j = mid, k = lo; k < hi; k++) {
+                    if      (i == mid)                                     a[k] = aux[j++];
+                    else if (j == hi)                                      a[k] = aux[i++];
+                    else if (keys[aux[j]].compareTo(keys[aux[i]]) < 0)     a[k] = aux[j++];
+                    else                                                   a[k] = aux[i++];
+                }
+            }
+        }
+        return a;
+    }
+
+    // returns the length of the common prefix of the strings
+    private static int commonPrefix(String a, String b) {
+        int d = 0, n = Math.min(a.length(), b.length());
+        while (d < n && a.charAt(d) == b.charAt(d))
+            d++;
+        return d;
+    }
+
+    // returns the node of the given key, -1 if none
+    private int node(String key) {
+        int x = 0;
+        for (int d = 0; d < key.length() && x != -1; d++)
+            x = next(x, key.charAt(d));
+        return x;
+    }
+
+    // returns the child of node x for the letter, -1 if none
+    private int next(int x, char letter) {
+        int c = letter - 'A';
+        if (c < 0 || c >= R || (mask[x] & 1 << c) == 0) return -1;
+        return first[x] + Integer.bitCount(mask[x] & (1 << c) - 1);
+    }
+
+    // returns the heap in use after a garbage collection, in bytes
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // unit test: loads the dictionary file and measures the heap held by a 
+    // Trie and a PackedTrie of it, as the change in the heap in use after a
+    // garbage collection
+    public static void main(String[] args) {
+        String[] keys = new In(args[0]).readAllStrings();
+        int[] values = new int[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            values[i] = keys[i].length();
+
+        long before = usedHeap();
+        Trie trie = new Trie();
+        for (int i = 0; i < keys.length; i++)
+            trie.put(keys[i], values[i]);
+        long trieBytes = usedHeap() - before;
+
+        before = usedHeap();
+        PackedTrie packed = new PackedTrie(keys, values);
+        long packedBytes = usedHeap() - before;
+
+        StdOut.printf("%d keys, %d nodes%n", packed.size(), packed.mask.length);
+        StdOut.printf("Trie       %.1f MB measured%n", trieBytes / 1e6);
+        StdOut.printf("PackedTrie %.1f MB measured%n", packedBytes / 1e6);
+        StdOut.println("contains(\"" + keys[0] + "\"): " + packed.contains(keys[0]) 
+                       + ", Trie agrees: " + (trie.contains(keys[0]) == packed.contains(keys[0])));
+    }
+}
\ No newline at end of file
@@ -71,6 +71,15 @@ public class Trie {
         return get(x.next[charAt(key, d)], key, d + 1);
     }
 
+    /**
+     * Returns the root node, to walk the trie one letter at a time with
+     * Node.child; null if the trie is empty.
+     * @return returns the root node; null if the trie is empty
+     */
+    public Node root() {
+        return root;
+    }
+
     /**
      * Returns true if empty, else false.
      * @return returns true if empty, else false
@@ -148,11 +157,36 @@ public class Trie {
         return (char) (s.charAt(d) - 'A');
     }
 
-    // node of the trie
-    private static class Node {
-        int value = -1;
-        int count = 0;
-        Node[] next = new Node[R];
+    /**
+     * The class Node is a node of the trie, the end of a prefix of its keys.
+     * The letter Q descends the two letters QU, as on a Boggle die.
+     */
+    public static class Node {
+        private int value = -1;
+        private int count = 0;
+        private Node[] next = new Node[R];
+
+        /**
+         * Returns the child of the node for the given letter, the grandchild
+         * for U after Q for the letter Q; null if no key goes on or the 
+         * letter is not A to Z.
+         * @param letter the upper case letter
+         * @return returns the child for the letter; null if none
+         */
+        public Node child(char letter) {
+            if (letter < 'A' || letter > 'Z') return null;
+            Node x = next[letter - 'A'];
+            if (letter == 'Q' && x != null) x = x.next['U' - 'A'];
+            return x;
+        }
+
+        /**
+         * Returns true if the prefix of the node is a key, else false.
+         * @return returns true if the prefix of the node is a key, else false
+         */
+        public boolean isWord() {
+            return value != -1;
+        }
     }
 
     // unit test
@@ -173,6 +207,11 @@ public class Trie {
         System.out.println("size(): " + trie.size());
         word = "MA";
         System.out.printf("hasPrefix(\"%s\"): %s\n", word, trie.hasPrefix(word));
+        Node x = trie.root();
+        for (int d = 0; d < 3 && x != null; d++)
+            x = x.child("MAD".charAt(d));
+        System.out.println("cursor M, A, D is a word: " + (x != null && x.isWord()));
+        System.out.println("cursor for 'a' is null: " + (trie.root().child('a') == null));
 
         System.out.print("\nKeys in the trie: ");
         for (String key : trie.keys())
@@ -1,14 +1,38 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
 import edu.princeton.cs.algs4.BinaryStdIn;
 import edu.princeton.cs.algs4.BinaryStdOut;
 
 /**
  * The class BurrowsWheeler provides static methods to transform and inverse transform 
  * a sequence of characters using Burrows-Wheeler data compression algorithm.
+ * The block methods split the input into independent blocks, bzip2-style, so
+ * that memory use is bounded by the block size instead of the input size.
+ * Each block is written as a frame: the block length, the first index and
+ * the transformed bytes of the block. The file methods write the same frames
+ * but memory-map the source and target files, a window of whole blocks of at
+ * most 1 GB at a time, instead of going through standard input and output.
  * 
  * @author Karthikeyan
  */
 public class BurrowsWheeler {
-    private static final int R = 256;
+    /** The smallest block size accepted by the block methods. */
+    public static final int MIN_BLOCK_SIZE = 100 * 1024;
+
+    /** The largest block size accepted by the block methods. */
+    public static final int MAX_BLOCK_SIZE = 8 * 1024 * 1024;
+
+    /** The block size used when none is given. */
+    public static final int DEFAULT_BLOCK_SIZE = 900 * 1024;
+
+    private static final int WINDOW = 1 << 30;  // bytes mapped at a time
 
     /**
      * Reads from standard input, applies Burrows-Wheeler transform and writes
@@ -16,7 +40,7 @@ public class BurrowsWheeler {
      */
     public static void transform() {
         String s = BinaryStdIn.readString();
-        CircularSuffixArray csa = new CircularSuffixArray(s);
+        CircularSuffixArray csa = new CircularSuffixArray(s, CircularSuffixArray.Engine.HARDENED);
         int n = csa.length();
         for (int i = 0; i < n; i++) {
             if (csa.index(i) == 0) {
@@ -35,37 +59,221 @@ public class BurrowsWheeler {
      */
     public static void inverseTransform() {
         int first = BinaryStdIn.readInt();
-        char[] t = BinaryStdIn.readString().toCharArray();
-        char[] s = t.clone();
-        int[] next = new int[s.length];
-        sort(s, next); 
-        
-        for (int i = 0; i < t.length; i++, first = next[first]) 
-            BinaryStdOut.write((s[first]));
+        byte[] t = BinaryStdIn.readString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] s = new byte[t.length];
+        new LastFirstMapping().invert(t, t.length, first, s);
+        for (byte b : s) 
+            BinaryStdOut.write(b);
+        BinaryStdOut.close();
+    }
+
+    /**
+     * Reads from standard input in blocks of the given size, applies 
+     * Burrows-Wheeler transform to each block and writes the frames to
+     * standard output.
+     * @param blockSize the block size in bytes
+     * @throws IllegalArgumentException if block size out of range
+     */
+    public static void transformBlocks(int blockSize) {
+        validateBlockSize(blockSize);
+        byte[] block = new byte[blockSize];
+        byte[] last  = new byte[blockSize];
+        int[] index  = new int[blockSize];
+
+        while (!BinaryStdIn.isEmpty()) {
+            int n = 0;
+            while (n < blockSize && !BinaryStdIn.isEmpty())
+                block[n++] = BinaryStdIn.readByte();
+            int first = transform(block, n, last, index);
+            BinaryStdOut.write(n);
+            BinaryStdOut.write(first);
+            for (int i = 0; i < n; i++)
+                BinaryStdOut.write(last[i]);
+        }
+        BinaryStdOut.close();
+    }
+
+    /**
+     * Reads the frames written by transformBlocks from standard input, 
+     * applies Burrows-Wheeler inverse transform to each block and writes to
+     * standard output. Only one block is held in memory at a time.
+     * @throws IllegalArgumentException if a frame is corrupt
+     */
+    public static void inverseTransformBlocks() {
+        LastFirstMapping mapping = new LastFirstMapping();
+        byte[] last  = new byte[0];
+        byte[] block = new byte[0];
+
+        while (!BinaryStdIn.isEmpty()) {
+            int n = BinaryStdIn.readInt();
+            int first = BinaryStdIn.readInt();
+            if (n <= 0 || n > MAX_BLOCK_SIZE || first < 0 || first >= n)
+                throw new IllegalArgumentException("Corrupt block frame.");
+            if (n > last.length) {
+                last  = new byte[n];
+                block = new byte[n];
+            }
+            for (int i = 0; i < n; i++)
+                last[i] = BinaryStdIn.readByte();
+            mapping.invert(last, n, first, block);
+            for (int i = 0; i < n; i++)
+                BinaryStdOut.write(block[i]);
+        }
         BinaryStdOut.close();
     }
 
-    // sort the given array
-    private static void sort(char[] a, int[] index) {
-        int n = a.length;
-        int[] count = new int[R + 1];
-        char[] aux  = new char[n];
+    /**
+     * Applies Burrows-Wheeler transform to the source file in blocks of the
+     * given size and writes the frames to the target file.
+     * @param source the name of the file to transform
+     * @param target the name of the file to write
+     * @param blockSize the block size in bytes
+     * @throws IllegalArgumentException if block size out of range or a file
+     * cannot be mapped
+     */
+    public static void transformBlocks(String source, String target, int blockSize) {
+        validateBlockSize(blockSize);
+        try (FileChannel in  = FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+             FileChannel out = create(target)) {
+            byte[] last  = new byte[blockSize];
+            int[] index  = new int[blockSize];
+            long size = in.size(), window = (long) Math.max(1, WINDOW / blockSize) * blockSize;
+
+            for (long p = 0, q = 0; p < size; p += window) {
+                int length = (int) Math.min(window, size - p);
+                int blocks = (length + blockSize - 1) / blockSize;
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, p, length);
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, q, length + 8L * blocks);
+                for (int i = 0, j = 0; i < length; i += blockSize, j += blockSize + 8) {
+                    int n = Math.min(blockSize, length - i);
+                    int first = transform(src.slice(i, n), last, index);
+                    dst.putInt(j, n).putInt(j + 4, first).put(j + 8, last, 0, n);
+                }
+                q += length + 8L * blocks;
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("could not map " + source + " to " + target, e);
+        }
+    }
+
+    /**
+     * Reads the frames written by transformBlocks from the source file, 
+     * applies Burrows-Wheeler inverse transform to each block and writes to
+     * the target file.
+     * @param source the name of the file to inverse transform
+     * @param target the name of the file to write
+     * @throws IllegalArgumentException if a frame is corrupt or a file cannot
+     * be mapped
+     */
+    public static void inverseTransformBlocks(String source, String target) {
+        try (FileChannel in  = FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+             FileChannel out = create(target)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            long size = in.size();
+            int[] lengths = new int[16];
+            int count = 0, max = 0;
+            for (long p = 0; p < size; p += 8 + lengths[count++]) {
+                if (count == lengths.length) 
+                    lengths = Arrays.copyOf(lengths, 2 * count);
+                lengths[count] = frameLength(in, p, header);
+                max = Math.max(max, lengths[count]);
+            }
+            LastFirstMapping mapping = new LastFirstMapping();
+            byte[] last  = new byte[max];
+            byte[] block = new byte[max];
+
+            int f = 0;
+            for (long p = 0, q = 0; p < size; ) {
+                // whole frames that fit in one window
+                long end = p + 8 + lengths[f++];
+                int frames = 1;
+                while (f < count && end + 8 + lengths[f] - p <= WINDOW) {
+                    end += 8 + lengths[f++];
+                    frames++;
+                }
+
+                int length = (int) (end - p);
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, p, length);
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, q, length - 8L * frames);
+                for (int i = 0, j = 0; i < length; ) {
+                    int n = src.getInt(i), first = src.getInt(i + 4);
+                    if (first < 0 || first >= n)
+                        throw new IllegalArgumentException("Corrupt block frame.");
+                    src.get(i + 8, last, 0, n);
+                    mapping.invert(last, n, first, block);
+                    dst.put(j, block, 0, n);
+                    i += 8 + n;
+                    j += n;
+                }
+                q += length - 8L * frames;
+                p = end;
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("could not map " + source + " to " + target, e);
+        }
+    }
+
+    // returns the block length of the frame at position p of the file
+    private static int frameLength(FileChannel in, long p, ByteBuffer header) throws IOException {
+        header.clear();
+        while (header.hasRemaining()) {
+            if (in.read(header, p + header.position()) <= 0) break;
+        }
+        int n = header.hasRemaining() ? -1 : header.getInt(0);
+        if (n <= 0 || n > MAX_BLOCK_SIZE || p + 8 + n > in.size())
+            throw new IllegalArgumentException("Corrupt block frame.");
+        return n;
+    }
+
+    // opens the target file for mapping, truncating it
+    private static FileChannel create(String target) throws IOException {
+        return FileChannel.open(Paths.get(target), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
 
-        for (char c : a) count[c + 1]++;
-        for (int r = 1; r <= R; r++) 
-            count[r] += count[r - 1];
+    // transforms the remaining bytes of the buffer into last without copying
+    // them, returns the first index
+    private static int transform(ByteBuffer block, byte[] last, int[] index) {
+        int n = block.remaining(), p = block.position();
+        CircularSuffixArray.sort(block, index, CircularSuffixArray.Engine.SAIS);
+        int first = -1;
         for (int i = 0; i < n; i++) {
-            int j = count[a[i]]++;
-            aux[j] = a[i];
-            index[j] = i;
+            int j = index[i];
+            if (j == 0) first = i;
+            last[i] = block.get(p + (j == 0 ? n - 1 : j - 1));
         }
-        for (int i = 0; i < n; i++) 
-            a[i] = aux[i];
+        return first;
+    }
+
+    // transforms the first n bytes of block into last, returns the first index
+    static int transform(byte[] block, int n, byte[] last, int[] index) {
+        CircularSuffixArray.sort(block, n, index, CircularSuffixArray.Engine.SAIS);
+        int first = -1;
+        for (int i = 0; i < n; i++) {
+            int j = index[i];
+            if (j == 0) first = i;
+            last[i] = block[j == 0 ? n - 1 : j - 1];
+        }
+        return first;
+    }
+
+    // throw IllegalArgumentException if block size out of range
+    static void validateBlockSize(int blockSize) {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE)
+            throw new IllegalArgumentException("Block size out of range: " + blockSize);
     }
 
     // test client
     public static void main(String[] args) {
         if (args[0].equals("-")) transform();
+        else if (args[0].equals("-b")) 
+            transformBlocks(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BLOCK_SIZE);
+        else if (args[0].equals("+b")) inverseTransformBlocks();
+        else if (args[0].equals("-f")) 
+            transformBlocks(args[1], args[2], args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BLOCK_SIZE);
+        else if (args[0].equals("+f")) inverseTransformBlocks(args[1], args[2]);
         else inverseTransform();
     }
 }
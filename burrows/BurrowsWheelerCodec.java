@@ -0,0 +1,443 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import edu.princeton.cs.algs4.BinaryStdIn;
+import edu.princeton.cs.algs4.BinaryStdOut;
+
+/**
+ * The class BurrowsWheelerCodec compresses and decompresses bytes in memory
+ * with the bzip2-style pipeline: Burrows-Wheeler transform, move-to-front
+ * encoding, run-length encoding of the zeros and Huffman coding. The input is
+ * split into blocks and each block is written as a frame: the block length,
+ * the first index, the payload length in bytes and the payload. The payload
+ * holds the Huffman code lengths followed by the coded symbols. Runs of zeros
+ * are written in bijective base 2 with the symbols RUNA and RUNB, and a
+ * non-zero rank v as the symbol v + 1.
+ *
+ * A codec reuses its block buffers between calls, so an instance must not be
+ * shared between threads.
+ *
+ * @author Karthikeyan
+ */
+public class BurrowsWheelerCodec {
+    private static final int RUNA = 0;                  // run digit one
+    private static final int RUNB = 1;                  // run digit two
+    private static final int EOB = 257;                 // end of block
+    private static final int SYMBOLS = 258;             // alphabet of the coder
+    private static final int MAX_CODE_LENGTH = 20;      // longest Huffman code
+    private static final int LENGTH_BITS = 5;           // bits per code length
+    private static final int HEADER = 12;               // bytes of the frame header
+
+    private final int blockSize;
+    private final MoveToFrontIndex list = new MoveToFrontIndex();
+    private final LastFirstMapping mapping = new LastFirstMapping();
+    private final int[] freq   = new int[SYMBOLS];
+    private final int[] length = new int[SYMBOLS];
+    private final int[] code   = new int[SYMBOLS];
+    private byte[] block = new byte[0], last = new byte[0];
+    private char[] symbols = new char[0];
+    private int[] index = new int[0];
+
+    /**
+     * Initialises the codec with the default block size.
+     */
+    public BurrowsWheelerCodec() {
+        this(BurrowsWheeler.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Initialises the codec with the given block size.
+     * @param blockSize the block size in bytes
+     * @throws IllegalArgumentException if block size out of range
+     */
+    public BurrowsWheelerCodec(int blockSize) {
+        BurrowsWheeler.validateBlockSize(blockSize);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the largest number of bytes compress can write for the given
+     * number of input bytes.
+     * @param n the number of input bytes
+     * @return returns the bound on the compressed length
+     */
+    public int maxCompressedLength(int n) {
+        int blocks = (n + blockSize - 1) / blockSize;
+        long payload = ((long) n + blocks) * MAX_CODE_LENGTH / 8 + blocks;
+        long bound = blocks * (HEADER + (SYMBOLS * LENGTH_BITS + 7) / 8L) + payload;
+        if (bound > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Input too large: " + n);
+        return (int) bound;
+    }
+
+    /**
+     * Compresses the remaining bytes of in and writes the frames to out. The
+     * position of in is advanced to its limit.
+     * @param in the bytes to compress
+     * @param out the buffer for the frames
+     * @throws IllegalArgumentException if in or out is null
+     * @throws java.nio.BufferOverflowException if out has not enough space
+     */
+    public void compress(ByteBuffer in, ByteBuffer out) {
+        if (in == null || out == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        ensureCapacity(Math.min(blockSize, in.remaining()));
+        while (in.hasRemaining()) {
+            int n = Math.min(blockSize, in.remaining());
+            in.get(block, 0, n);
+            compressBlock(n, out);
+        }
+    }
+
+    /**
+     * Decompresses the frames in the remaining bytes of in and writes the
+     * bytes to out. The position of in is advanced to its limit.
+     * @param in the frames to decompress
+     * @param out the buffer for the bytes
+     * @throws IllegalArgumentException if in or out is null or a frame is
+     * corrupt
+     * @throws java.nio.BufferOverflowException if out has not enough space
+     */
+    public void decompress(ByteBuffer in, ByteBuffer out) {
+        if (in == null || out == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        while (in.hasRemaining())
+            decompressBlock(in, out);
+    }
+
+    /**
+     * Returns the number of bytes the frames in the remaining bytes of in
+     * decompress to. The position of in is not changed.
+     * @param in the frames
+     * @throws IllegalArgumentException if in is null or a frame is corrupt
+     * @return returns the decompressed length
+     */
+    public static long decompressedLength(ByteBuffer in) {
+        if (in == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        long total = 0;
+        for (int p = in.position(); p < in.limit(); ) {
+            int size = in.limit() - p < HEADER ? -1 : getInt(in, p + 8);
+            if (size < 0 || size > in.limit() - p - HEADER)
+                throw new IllegalArgumentException("Corrupt block frame.");
+            total += getInt(in, p);
+            p += HEADER + size;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the compressed frames of the given bytes.
+     * @param data the bytes to compress
+     * @throws IllegalArgumentException if data is null
+     * @return returns the compressed frames
+     */
+    public byte[] compress(byte[] data) {
+        if (data == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        ByteBuffer out = ByteBuffer.allocate(maxCompressedLength(data.length));
+        compress(ByteBuffer.wrap(data), out);
+        byte[] result = new byte[out.position()];
+        out.flip().get(result);
+        return result;
+    }
+
+    /**
+     * Returns the bytes of the given compressed frames.
+     * @param data the compressed frames
+     * @throws IllegalArgumentException if data is null or corrupt
+     * @return returns the decompressed bytes
+     */
+    public byte[] decompress(byte[] data) {
+        if (data == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        long n = decompressedLength(ByteBuffer.wrap(data));
+        if (n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Output too large: " + n);
+        byte[] result = new byte[(int) n];
+        decompress(ByteBuffer.wrap(data), ByteBuffer.wrap(result));
+        return result;
+    }
+
+    // compresses the first n bytes of the block buffer into out
+    private void compressBlock(int n, ByteBuffer out) {
+        int first = BurrowsWheeler.transform(block, n, last, index);
+
+        // move-to-front and zero run-length encoding
+        list.reset();
+        int m = 0, run = 0;
+        for (int i = 0; i < n; i++) {
+            int rank = list.encode(last[i] & 0xff);
+            if (rank == 0) {
+                run++;
+                continue;
+            }
+            m = writeRun(run, m);
+            run = 0;
+            symbols[m++] = (char) (rank + 1);
+        }
+        m = writeRun(run, m);
+        symbols[m++] = EOB;
+
+        // Huffman coding
+        Arrays.fill(freq, 0);
+        for (int i = 0; i < m; i++)
+            freq[symbols[i]]++;
+        codeLengths(freq, length);
+        canonicalCodes(length, code);
+
+        putInt(out, n);
+        putInt(out, first);
+        int start = out.position();
+        putInt(out, 0);
+        BitWriter bits = new BitWriter(out);
+        for (int s = 0; s < SYMBOLS; s++)
+            bits.write(length[s], LENGTH_BITS);
+        for (int i = 0; i < m; i++)
+            bits.write(code[symbols[i]], length[symbols[i]]);
+        bits.flush();
+        putInt(out, start, out.position() - start - 4);
+    }
+
+    // writes the zero run of given length as RUNA and RUNB symbols
+    private int writeRun(int run, int m) {
+        while (run > 0) {
+            if ((run & 1) == 1) {
+                symbols[m++] = RUNA;
+                run = (run - 1) >> 1;
+            }
+            else {
+                symbols[m++] = RUNB;
+                run = (run - 2) >> 1;
+            }
+        }
+        return m;
+    }
+
+    // decompresses the frame at the position of in into out
+    private void decompressBlock(ByteBuffer in, ByteBuffer out) {
+        if (in.remaining() < HEADER)
+            throw new IllegalArgumentException("Corrupt block frame.");
+        int n = getInt(in), first = getInt(in), size = getInt(in);
+        if (n <= 0 || n > BurrowsWheeler.MAX_BLOCK_SIZE || first < 0 || first >= n
+                   || size < 0 || size > in.remaining())
+            throw new IllegalArgumentException("Corrupt block frame.");
+        ensureCapacity(n);
+
+        BitReader bits = new BitReader(in, in.position() + size);
+        for (int s = 0; s < SYMBOLS; s++)
+            length[s] = bits.read(LENGTH_BITS);
+        Decoder decoder = new Decoder(length);
+
+        list.reset();
+        int i = 0, run = 0, weight = 1;
+        for (int s = decoder.decode(bits); s != EOB; s = decoder.decode(bits)) {
+            if (s == RUNA || s == RUNB) {
+                run += (s + 1) * weight;
+                weight <<= 1;
+                if (run > n - i)
+                    throw new IllegalArgumentException("Corrupt block.");
+                continue;
+            }
+            for (; run > 0; run--)
+                last[i++] = (byte) list.decode(0);
+            weight = 1;
+            if (i == n)
+                throw new IllegalArgumentException("Corrupt block.");
+            last[i++] = (byte) list.decode(s - 1);
+        }
+        for (; run > 0; run--)
+            last[i++] = (byte) list.decode(0);
+        if (i != n)
+            throw new IllegalArgumentException("Corrupt block.");
+        in.position(in.position() + size);
+
+        mapping.invert(last, n, first, block);
+        out.put(block, 0, n);
+    }
+
+    // grows the block buffers to hold n bytes
+    private void ensureCapacity(int n) {
+        if (block.length >= n) return;
+        block   = new byte[n];
+        last    = new byte[n];
+        index   = new int[n];
+        symbols = new char[n + 1];
+    }
+
+    // computes Huffman code lengths of at most MAX_CODE_LENGTH bits
+    private static void codeLengths(int[] freq, int[] length) {
+        int[] weight = new int[2 * SYMBOLS];
+        int[] parent = new int[2 * SYMBOLS];
+        for (int s = 0; s < SYMBOLS; s++)
+            weight[s] = freq[s];
+
+        while (true) {
+            PriorityQueue<Integer> pq = new PriorityQueue<>((a, b) -> weight[a] != weight[b]
+                                                       ? Integer.compare(weight[a], weight[b])
+                                                       : Integer.compare(a, b));
+            for (int s = 0; s < SYMBOLS; s++)
+                if (weight[s] > 0) pq.add(s);
+
+            Arrays.fill(length, 0);
+            if (pq.size() == 1) {
+                length[pq.poll()] = 1;
+                return;
+            }
+
+            int node = SYMBOLS;
+            while (pq.size() > 1) {
+                int a = pq.poll(), b = pq.poll();
+                weight[node] = weight[a] + weight[b];
+                parent[a] = parent[b] = node;
+                pq.add(node++);
+            }
+            int root = node - 1, max = 0;
+            for (int s = 0; s < SYMBOLS; s++) {
+                if (weight[s] == 0) continue;
+                for (int x = s; x != root; x = parent[x])
+                    length[s]++;
+                max = Math.max(max, length[s]);
+            }
+            if (max <= MAX_CODE_LENGTH) return;
+
+            // flatten the frequencies and try again
+            for (int s = 0; s < SYMBOLS; s++)
+                if (weight[s] > 0) weight[s] = 1 + weight[s] / 2;
+        }
+    }
+
+    // assigns the canonical codes for the given code lengths
+    private static void canonicalCodes(int[] length, int[] code) {
+        int next = 0;
+        for (int len = 1; len <= MAX_CODE_LENGTH; len++) {
+            for (int s = 0; s < SYMBOLS; s++)
+                if (length[s] == len) code[s] = next++;
+            next <<= 1;
+        }
+    }
+
+    // writes the int big-endian at the position of the buffer
+    private static void putInt(ByteBuffer out, int x) {
+        out.put((byte) (x >>> 24)).put((byte) (x >>> 16)).put((byte) (x >>> 8)).put((byte) x);
+    }
+
+    // writes the int big-endian at the given index of the buffer
+    private static void putInt(ByteBuffer out, int index, int x) {
+        out.put(index, (byte) (x >>> 24)).put(index + 1, (byte) (x >>> 16))
+           .put(index + 2, (byte) (x >>> 8)).put(index + 3, (byte) x);
+    }
+
+    // reads a big-endian int at the position of the buffer
+    private static int getInt(ByteBuffer in) {
+        int x = getInt(in, in.position());
+        in.position(in.position() + 4);
+        return x;
+    }
+
+    // reads a big-endian int at the given index of the buffer
+    private static int getInt(ByteBuffer in, int index) {
+        return (in.get(index) & 0xff) << 24 | (in.get(index + 1) & 0xff) << 16
+             | (in.get(index + 2) & 0xff) << 8 | (in.get(index + 3) & 0xff);
+    }
+
+    // writes bits most significant first
+    private static class BitWriter {
+        private final ByteBuffer out;
+        private long buffer;
+        private int n;
+
+        BitWriter(ByteBuffer out) {
+            this.out = out;
+        }
+
+        void write(int x, int r) {
+            buffer = buffer << r | x;
+            n += r;
+            while (n >= 8) {
+                n -= 8;
+                out.put((byte) (buffer >>> n));
+            }
+        }
+
+        void flush() {
+            if (n > 0) out.put((byte) (buffer << (8 - n)));
+            n = 0;
+        }
+    }
+
+    // reads bits most significant first, up to the given limit
+    private static class BitReader {
+        private final ByteBuffer in;
+        private final int limit;
+        private int position;
+        private int buffer, n;
+
+        BitReader(ByteBuffer in, int limit) {
+            this.in = in;
+            this.limit = limit;
+            position = in.position();
+        }
+
+        int readBit() {
+            if (n == 0) {
+                if (position == limit)
+                    throw new IllegalArgumentException("Corrupt block.");
+                buffer = in.get(position++);
+                n = 8;
+            }
+            return buffer >>> --n & 1;
+        }
+
+        int read(int r) {
+            int x = 0;
+            for (int i = 0; i < r; i++)
+                x = x << 1 | readBit();
+            return x;
+        }
+    }
+
+    // canonical Huffman decoder
+    private static class Decoder {
+        private final int[] count  = new int[MAX_CODE_LENGTH + 1];  // codes of each length
+        private final int[] sorted = new int[SYMBOLS];              // symbols by code
+
+        Decoder(int[] length) {
+            for (int s = 0; s < SYMBOLS; s++) {
+                if (length[s] > MAX_CODE_LENGTH)
+                    throw new IllegalArgumentException("Corrupt block.");
+                count[length[s]]++;
+            }
+            count[0] = 0;
+            int k = 0;
+            for (int len = 1; len <= MAX_CODE_LENGTH; len++)
+                for (int s = 0; s < SYMBOLS; s++)
+                    if (length[s] == len) sorted[k++] = s;
+        }
+
+        int decode(BitReader bits) {
+            int code = 0, first = 0, index = 0;
+            for (int len = 1; len <= MAX_CODE_LENGTH; len++) {
+                code |= bits.readBit();
+                int c = count[len];
+                if (code - first < c) return sorted[index + code - first];
+                index += c;
+                first = (first + c) << 1;
+                code <<= 1;
+            }
+            throw new IllegalArgumentException("Corrupt block.");
+        }
+    }
+
+    // test client
+    public static void main(String[] args) {
+        BurrowsWheelerCodec codec = new BurrowsWheelerCodec();
+        byte[] in = BinaryStdIn.readString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] out = args[0].equals("-") ? codec.compress(in) : codec.decompress(in);
+        for (byte b : out)
+            BinaryStdOut.write(b);
+        BinaryStdOut.close();
+    }
+}
@@ -1,8 +1,18 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import edu.princeton.cs.algs4.StdOut;
 
 /**
  * The class CircularSuffixArray which describes the abstraction of a sorted array
- * of the n circular suffixes of a string of length n.
+ * of the n circular suffixes of a string of length n. Byte input is sorted in
+ * place without a copy, and the wrap-around of a suffix is a single compare
+ * and subtract instead of a modulo per character. The HARDENED engine, the
+ * default, sorts without recursion, so inputs such as long runs of one 
+ * character cannot overflow the stack, and switches to SA-IS once the radix
+ * passes get too deep or too costly. The recursive QUICKSORT engine must be
+ * asked for explicitly.
  * Example: 
  *  string s = "Kira"
  *   i      Original Suffices       Sorted Suffices       index[i]
@@ -15,21 +25,155 @@ import edu.princeton.cs.algs4.StdOut;
  * @author Karthikeyan
  */
 public class CircularSuffixArray {
+    private static final int CUTOFF = 15;         // insertion sort at or below this size
+    private static final int DEPTH_LIMIT = 128;   // deepest radix pass before SA-IS
+    private static final int WORK_FACTOR = 64;    // characters read per suffix before SA-IS
+    private static final int TOO_DEEP = 2;        // compare result past the depth limit
     private  final int[] index;
+    private  final int n;
+
+    /**
+     * The engines available to sort the circular suffixes.
+     */
+    public enum Engine {
+        /** modified 3-way radix quicksort, fast on typical text */
+        QUICKSORT,
+        /** SA-IS induced sorting, linear time in the worst case */
+        SAIS,
+        /** iterative 3-way radix quicksort with an insertion sort cutoff that 
+            falls back to SA-IS on deep or costly inputs */
+        HARDENED
+    }
 
     /**
-     * Constructs the circular suffix array of the given string.
+     * Constructs the circular suffix array of the given string using the
+     * HARDENED engine.
      * @param s the String 
      * @throws IllegalArgumentException if s is null
      */
     public CircularSuffixArray(String s) {
-        if (s == null) 
+        this(s, Engine.HARDENED);
+    }
+
+    /**
+     * Constructs the circular suffix array of the given string using the
+     * given sorting engine. Every engine gives the same order: circular 
+     * suffixes that are equal (periodic strings) appear by ascending start.
+     * Strings with characters beyond extended ASCII are always sorted with
+     * SAIS.
+     * @param s the String
+     * @param engine the sorting engine
+     * @throws IllegalArgumentException if s or engine is null
+     */
+    public CircularSuffixArray(String s, Engine engine) {
+        if (s == null || engine == null) 
             throw new IllegalArgumentException("Null argument not allowed.");
-        int n = s.length();
+        n = s.length();
         index = new int[n];
+        int upper = 0;
         for (int i = 0; i < n; i++) 
-            index[i] = i;
-        sort(s, index, 0, n - 1, 0);
+            upper = Math.max(upper, s.charAt(i));
+        if (upper < 256) {
+            sort(s.getBytes(StandardCharsets.ISO_8859_1), 0, n, index, engine);
+            return;
+        }
+        int[] chars = new int[n];
+        for (int i = 0; i < n; i++) 
+            chars[i] = s.charAt(i);
+        InducedSuffixSort.circularSuffixArray(chars, upper, index);
+    }
+
+    /**
+     * Constructs the circular suffix array of the given bytes using the
+     * HARDENED engine.
+     * @param s the bytes
+     * @throws IllegalArgumentException if s is null
+     */
+    public CircularSuffixArray(byte[] s) {
+        this(s, s == null ? 0 : s.length, null, Engine.HARDENED);
+    }
+
+    /**
+     * Constructs the circular suffix array of the first n bytes of s using
+     * the given sorting engine. If index holds at least n entries it is used
+     * to store the array, so a caller sorting many blocks can reuse it.
+     * @param s the bytes
+     * @param n the number of bytes to use
+     * @param index the array to reuse; may be null
+     * @param engine the sorting engine
+     * @throws IllegalArgumentException if s or engine is null or n out of range
+     */
+    public CircularSuffixArray(byte[] s, int n, int[] index, Engine engine) {
+        if (s == null || engine == null) 
+            throw new IllegalArgumentException("Null argument not allowed.");
+        if (n < 0 || n > s.length)
+            throw new IllegalArgumentException(n + " out of prescribed range.");
+        this.n = n;
+        this.index = index != null && index.length >= n ? index : new int[n];
+        sort(s, 0, n, this.index, engine);
+    }
+
+    /**
+     * Constructs the circular suffix array of the remaining bytes of the 
+     * buffer using the given sorting engine. The position of the buffer is
+     * not changed and an array-backed buffer is not copied.
+     * @param s the buffer
+     * @param index the array to reuse; may be null
+     * @param engine the sorting engine
+     * @throws IllegalArgumentException if s or engine is null
+     */
+    public CircularSuffixArray(ByteBuffer s, int[] index, Engine engine) {
+        if (s == null || engine == null) 
+            throw new IllegalArgumentException("Null argument not allowed.");
+        n = s.remaining();
+        this.index = index != null && index.length >= n ? index : new int[n];
+        sort(s, this.index, engine);
+    }
+
+    /**
+     * Sorts the circular suffixes of the first n bytes of s into the first n
+     * entries of index without building a CircularSuffixArray, for callers
+     * that keep their own index array.
+     * @param s the bytes
+     * @param n the number of bytes to use
+     * @param index the array to store the sorted suffixes in
+     * @param engine the sorting engine
+     * @throws IllegalArgumentException if s, index or engine is null, n out 
+     * of range or index shorter than n
+     */
+    public static void sort(byte[] s, int n, int[] index, Engine engine) {
+        if (s == null || index == null || engine == null) 
+            throw new IllegalArgumentException("Null argument not allowed.");
+        if (n < 0 || n > s.length || n > index.length)
+            throw new IllegalArgumentException(n + " out of prescribed range.");
+        sort(s, 0, n, index, engine);
+    }
+
+    /**
+     * Sorts the circular suffixes of the remaining bytes of the buffer into
+     * the first entries of index. The position of the buffer is not changed.
+     * An array-backed buffer is sorted in place. The remaining bytes of a 
+     * direct or mapped buffer are copied once into a byte array of their 
+     * length, as every engine needs random access to them.
+     * @param s the buffer
+     * @param index the array to store the sorted suffixes in
+     * @param engine the sorting engine
+     * @throws IllegalArgumentException if s, index or engine is null or index
+     * shorter than the remaining bytes
+     */
+    public static void sort(ByteBuffer s, int[] index, Engine engine) {
+        if (s == null || index == null || engine == null) 
+            throw new IllegalArgumentException("Null argument not allowed.");
+        int n = s.remaining();
+        if (n > index.length)
+            throw new IllegalArgumentException(n + " out of prescribed range.");
+        if (s.hasArray()) 
+            sort(s.array(), s.arrayOffset() + s.position(), n, index, engine);
+        else {
+            byte[] a = new byte[n];
+            s.duplicate().get(a);
+            sort(a, 0, n, index, engine);
+        }
     }
 
     /**
@@ -37,7 +181,7 @@ public class CircularSuffixArray {
      * @return returns the length
      */
     public int length() {
-        return index.length;
+        return n;
     }
 
     /**
@@ -47,33 +191,126 @@ public class CircularSuffixArray {
      * @return returns index of ith sorted aeeay
      */
     public int index(int i) {
-        if (i < 0 || i >= index.length) 
+        if (i < 0 || i >= n) 
             throw new IllegalArgumentException(i + " out of prescribed range.");
         return index[i];
     }
 
-    // returns the dth char of ith suffix
-    private static int charAt(String s, int d, int i) {
-        if (d == s.length()) return -1;
-        return s.charAt((d + i) % s.length());
+    // sorts the circular suffixes of a[offset..offset+n) into index; equal
+    // suffixes only come from a periodic input, so the radix engines sort one
+    // period and repeat it, equal suffixes by ascending start as in SAIS
+    private static void sort(byte[] a, int offset, int n, int[] index, Engine engine) {
+        if (engine == Engine.SAIS) {
+            InducedSuffixSort.circularSuffixArray(a, offset, n, index);
+            return;
+        }
+        int p = InducedSuffixSort.period(a, offset, n, index);
+        for (int i = 0; i < p; i++) 
+            index[i] = i;
+        if (engine == Engine.QUICKSORT) 
+            sort(a, offset, p, index, 0, p - 1, 0);
+        else if (!hardenedSort(a, offset, p, index)) {
+            sort(a, offset, n, index, Engine.SAIS);
+            return;
+        }
+        InducedSuffixSort.repeat(index, 0, p, n);
+    }
+
+    // returns the dth byte of ith suffix; -1 past the end
+    private static int charAt(byte[] a, int offset, int n, int d, int i) {
+        if (d == n) return -1;
+        int j = i + d;
+        if (j >= n) j -= n;
+        return a[offset + j] & 0xff;
     }
 
     // modified 3-way radix quicksort to sort the index
-    private static void sort(String s, int[] index, int lo, int hi, int d) {
+    private static void sort(byte[] a, int offset, int n, int[] index, int lo, int hi, int d) {
         if (hi <= lo) return;
         int lt = lo, rt = hi;
-        int v = charAt(s, d, index[lo]);
+        int v = charAt(a, offset, n, d, index[lo]);
         int i = lo + 1;
         while (i <= rt) {
-            int t = charAt(s, d, index[i]);
+            int t = charAt(a, offset, n, d, index[i]);
             if (t < v)      swap(index, lt++, i++);
             else if (t > v) swap(index, i, rt--);
             else            i++;
         }
 
-        sort(s, index, lo, lt - 1, d);
-        if (v >= 0) sort(s, index, lt, rt, d + 1);
-        sort(s, index, rt + 1, hi, d);
+        sort(a, offset, n, index, lo, lt - 1, d);
+        if (v >= 0) sort(a, offset, n, index, lt, rt, d + 1);
+        sort(a, offset, n, index, rt + 1, hi, d);
+    }
+
+    // iterative 3-way radix quicksort with insertion sort for small subarrays;
+    // returns false if a subarray gets too deep or the sort too costly
+    private static boolean hardenedSort(byte[] a, int offset, int n, int[] index) {
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        long work = (long) WORK_FACTOR * n;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int d = stack[--top], hi = stack[--top], lo = stack[--top];
+            if (hi <= lo) continue;
+            if (d > DEPTH_LIMIT || (work -= hi - lo + 1) < 0) return false;
+            if (hi - lo < CUTOFF) {
+                if (!insertionSort(a, offset, n, index, lo, hi, d)) return false;
+                continue;
+            }
+
+            swap(index, lo, lo + (hi - lo) / 2);
+            int lt = lo, rt = hi;
+            int v = charAt(a, offset, n, d, index[lo]);
+            int i = lo + 1;
+            while (i <= rt) {
+                int t = charAt(a, offset, n, d, index[i]);
+                if (t < v)      swap(index, lt++, i++);
+                else if (t > v) swap(index, i, rt--);
+                else            i++;
+            }
+
+            if (top + 9 > stack.length) 
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            stack[top++] = lo;
+            stack[top++] = lt - 1;
+            stack[top++] = d;
+            stack[top++] = rt + 1;
+            stack[top++] = hi;
+            stack[top++] = d;
+            if (v >= 0) {
+                stack[top++] = lt;
+                stack[top++] = rt;
+                stack[top++] = d + 1;
+            }
+        }
+        return true;
+    }
+
+    // insertion sort of index[lo..hi] by the suffixes from depth d; returns
+    // false if two suffixes agree past the depth limit
+    private static boolean insertionSort(byte[] a, int offset, int n, int[] index, int lo, int hi, int d) {
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo; j--) {
+                int cmp = compare(a, offset, n, index[j], index[j - 1], d);
+                if (cmp == TOO_DEEP) return false;
+                if (cmp >= 0) break;
+                swap(index, j, j - 1);
+            }
+        }
+        return true;
+    }
+
+    // compares the ith and jth suffixes from depth d
+    private static int compare(byte[] a, int offset, int n, int i, int j, int d) {
+        for (; d < n; d++) {
+            if (d > DEPTH_LIMIT) return TOO_DEEP;
+            int x = charAt(a, offset, n, d, i), y = charAt(a, offset, n, d, j);
+            if (x != y) return x < y ? -1 : 1;
+        }
+        return 0;
     }
 
     // swaps the two elements in the array
@@ -91,5 +328,21 @@ public class CircularSuffixArray {
         StdOut.println("length(): " + csa.length());
         for (int i = 0; i < csa.length(); i++)
             StdOut.printf("index(%d): %d\n", i, csa.index(i));
+
+        for (String t : new String[] { "ABRACADABRA!", "ABABABAB" }) {
+            boolean same = true;
+            CircularSuffixArray sais = new CircularSuffixArray(t, Engine.SAIS);
+            for (Engine engine : new Engine[] { Engine.QUICKSORT, Engine.HARDENED }) {
+                CircularSuffixArray other = new CircularSuffixArray(t, engine);
+                for (int i = 0; i < t.length(); i++)
+                    same &= other.index(i) == sais.index(i);
+            }
+            StdOut.println("engines agree on \"" + t + "\": " + same);
+        }
+
+        byte[] run = new byte[1 << 20];
+        Arrays.fill(run, (byte) 'A');
+        csa = new CircularSuffixArray(run, run.length, null, Engine.HARDENED);
+        StdOut.println("hardened sort of 2^20 A's: length() = " + csa.length());
     }
 }
@@ -0,0 +1,281 @@
+import java.util.Arrays;
+
+/**
+ * The class InducedSuffixSort provides static methods to build the suffix
+ * array of an integer sequence, and the sorted circular suffixes of a byte or
+ * integer sequence, using the SA-IS (suffix array by induced sorting) 
+ * algorithm of Nong, Zhang and Chan. It takes linear time and space in the
+ * worst case, independent of how repetitive the input is.
+ * <p>
+ * The circular suffixes are sorted without doubling the input. A periodic
+ * input is reduced to its primitive root, and the root is read from its least
+ * rotation, which is a Lyndon word: the circular suffixes of a Lyndon word are
+ * in the same order as its plain suffixes, so SA-IS sorts them directly and
+ * the order is repeated for every period. Equal circular suffixes are thus
+ * ordered by ascending start.
+ *
+ * @author Karthikeyan
+ */
+public final class InducedSuffixSort {
+
+    // static methods only
+    private InducedSuffixSort() { }
+
+    /**
+     * Returns the suffix array of the given sequence. Every entry of s must
+     * be in the range [0, upper].
+     * @param s the sequence
+     * @param upper the largest symbol value in the sequence
+     * @throws IllegalArgumentException if s is null or upper is negative
+     * @return returns the start indices of the suffixes of s in sorted order
+     */
+    public static int[] suffixArray(int[] s, int upper) {
+        if (s == null)
+            throw new IllegalArgumentException("Null argument not allowed.");
+        if (upper < 0)
+            throw new IllegalArgumentException("Negative alphabet bound.");
+        int[] sa = new int[s.length];
+        sais(new Text(s), s.length, upper, sa);
+        return sa;
+    }
+
+    /**
+     * Sorts the circular suffixes of a[offset..offset+n) into the first n
+     * entries of index. The bytes are read in place, and equal circular 
+     * suffixes are ordered by ascending start.
+     * @param a the bytes
+     * @param offset the index of the first byte
+     * @param n the number of bytes
+     * @param index the array to store the sorted suffixes in
+     * @throws IllegalArgumentException if a or index is null, offset or n out
+     * of range or index shorter than n
+     */
+    public static void circularSuffixArray(byte[] a, int offset, int n, int[] index) {
+        if (a == null || index == null)
+            throw new IllegalArgumentException("Null argument not allowed.");
+        if (offset < 0 || n < 0 || n > a.length - offset || n > index.length)
+            throw new IllegalArgumentException(n + " out of prescribed range.");
+        circular(new Text(a, offset, n), n, 255, index);
+    }
+
+    /**
+     * Sorts the circular suffixes of the given sequence into the first 
+     * s.length entries of index. Every entry of s must be in the range 
+     * [0, upper], and equal circular suffixes are ordered by ascending start.
+     * @param s the sequence
+     * @param upper the largest symbol value in the sequence
+     * @param index the array to store the sorted suffixes in
+     * @throws IllegalArgumentException if s or index is null, upper is 
+     * negative or index shorter than s
+     */
+    public static void circularSuffixArray(int[] s, int upper, int[] index) {
+        if (s == null || index == null)
+            throw new IllegalArgumentException("Null argument not allowed.");
+        if (upper < 0)
+            throw new IllegalArgumentException("Negative alphabet bound.");
+        if (s.length > index.length)
+            throw new IllegalArgumentException(s.length + " out of prescribed range.");
+        circular(new Text(s), s.length, upper, index);
+    }
+
+    // sorts the circular suffixes of the first n symbols of s into index
+    private static void circular(Text s, int n, int upper, int[] index) {
+        if (n == 0) return;
+        int p = period(s, n, index);
+        int r = leastRotation(s, p);
+        sais(s.rotate(r, p), p, upper, index);
+        repeat(index, r, p, n);
+    }
+
+    // returns the length of the primitive root of a[offset..offset+n), using
+    // the first n entries of scratch
+    static int period(byte[] a, int offset, int n, int[] scratch) {
+        return n == 0 ? 0 : period(new Text(a, offset, n), n, scratch);
+    }
+
+    // spreads the sorted circular suffixes of a root of length p, stored in 
+    // index as starts relative to rotation r of the root, over the n / p
+    // periods, equal suffixes by ascending start
+    static void repeat(int[] index, int r, int p, int n) {
+        int k = n / p;
+        for (int i = p - 1; i >= 0; i--) {
+            int start = index[i] + r;
+            if (start >= p) start -= p;
+            for (int j = k - 1; j >= 0; j--)
+                index[i * k + j] = start + j * p;
+        }
+    }
+
+    // returns the length of the primitive root of the first n symbols of s, 
+    // using the prefix function stored in scratch
+    private static int period(Text s, int n, int[] scratch) {
+        scratch[0] = 0;
+        for (int i = 1; i < n; i++) {
+            int k = scratch[i - 1];
+            while (k > 0 && s.at(i) != s.at(k)) 
+                k = scratch[k - 1];
+            if (s.at(i) == s.at(k)) k++;
+            scratch[i] = k;
+        }
+        int p = n - scratch[n - 1];
+        return n % p == 0 ? p : n;
+    }
+
+    // returns the start of the least rotation of the first p symbols of s,
+    // which must not be periodic
+    private static int leastRotation(Text s, int p) {
+        int i = 0, j = 1, k = 0;
+        while (i < p && j < p && k < p) {
+            int x = i + k, y = j + k;
+            if (x >= p) x -= p;
+            if (y >= p) y -= p;
+            int a = s.at(x), b = s.at(y);
+            if (a == b) k++;
+            else {
+                if (a > b) i += k + 1;
+                else       j += k + 1;
+                if (i == j) j++;
+                k = 0;
+            }
+        }
+        return Math.min(i, j);
+    }
+
+    // induced sorting of the first n symbols of s into the first n entries of sa
+    private static void sais(Text s, int n, int upper, int[] sa) {
+        if (n == 0) return;
+        if (n == 1) {
+            sa[0] = 0;
+            return;
+        }
+        if (n == 2) {
+            boolean less = s.at(0) < s.at(1);
+            sa[0] = less ? 0 : 1;
+            sa[1] = less ? 1 : 0;
+            return;
+        }
+
+        // classify the suffixes into S-type (true) and L-type (false)
+        boolean[] ls = new boolean[n];
+        for (int i = n - 2; i >= 0; i--) {
+            int a = s.at(i), b = s.at(i + 1);
+            ls[i] = a == b ? ls[i + 1] : a < b;
+        }
+
+        // bucket boundaries of the L-type and S-type suffixes
+        int[] sumL = new int[upper + 1];
+        int[] sumS = new int[upper + 1];
+        for (int i = 0; i < n; i++) {
+            if (!ls[i]) sumS[s.at(i)]++;
+            else        sumL[s.at(i) + 1]++;
+        }
+        for (int i = 0; i <= upper; i++) {
+            sumS[i] += sumL[i];
+            if (i < upper) sumL[i + 1] += sumS[i];
+        }
+
+        // the leftmost S-type suffixes
+        int[] lmsMap = new int[n + 1];
+        Arrays.fill(lmsMap, -1);
+        int m = 0;
+        for (int i = 1; i < n; i++)
+            if (!ls[i - 1] && ls[i]) lmsMap[i] = m++;
+        int[] lms = new int[m];
+        for (int i = 1, j = 0; i < n; i++)
+            if (!ls[i - 1] && ls[i]) lms[j++] = i;
+
+        int[] bucket = new int[upper + 1];
+        induce(s, n, sa, ls, sumL, sumS, bucket, lms);
+        if (m == 0) return;
+
+        // name the sorted LMS substrings and sort them recursively
+        int[] sortedLms = new int[m];
+        for (int i = 0, j = 0; i < n; i++)
+            if (lmsMap[sa[i]] != -1) sortedLms[j++] = sa[i];
+
+        int[] recS = new int[m];
+        int recUpper = 0;
+        recS[lmsMap[sortedLms[0]]] = 0;
+        for (int i = 1; i < m; i++) {
+            int l = sortedLms[i - 1], r = sortedLms[i];
+            int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+            int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+            boolean same = true;
+            if (endL - l != endR - r) same = false;
+            else {
+                while (l < endL && s.at(l) == s.at(r)) {
+                    l++;
+                    r++;
+                }
+                if (l == n || s.at(l) != s.at(r)) same = false;
+            }
+            if (!same) recUpper++;
+            recS[lmsMap[sortedLms[i]]] = recUpper;
+        }
+
+        // the sorted names overwrite sortedLms, which is no longer needed
+        sais(new Text(recS), m, recUpper, sortedLms);
+        for (int i = 0; i < m; i++)
+            sortedLms[i] = lms[sortedLms[i]];
+        induce(s, n, sa, ls, sumL, sumS, bucket, sortedLms);
+    }
+
+    // induces the order of all suffixes from the given order of LMS suffixes
+    private static void induce(Text s, int n, int[] sa, boolean[] ls, int[] sumL,
+                               int[] sumS, int[] bucket, int[] lms) {
+        Arrays.fill(sa, 0, n, -1);
+        System.arraycopy(sumS, 0, bucket, 0, bucket.length);
+        for (int d : lms)
+            if (d != n) sa[bucket[s.at(d)]++] = d;
+
+        System.arraycopy(sumL, 0, bucket, 0, bucket.length);
+        sa[bucket[s.at(n - 1)]++] = n - 1;
+        for (int i = 0; i < n; i++) {
+            int v = sa[i];
+            if (v >= 1 && !ls[v - 1]) sa[bucket[s.at(v - 1)]++] = v - 1;
+        }
+
+        System.arraycopy(sumL, 0, bucket, 0, bucket.length);
+        for (int i = n - 1; i >= 0; i--) {
+            int v = sa[i];
+            if (v >= 1 && ls[v - 1]) sa[--bucket[s.at(v - 1) + 1]] = v - 1;
+        }
+    }
+
+    // a read-only view of bytes or integers, rotated within its length
+    private static final class Text {
+        private final byte[] bytes;
+        private final int[] ints;
+        private final int offset;
+        private final int length;
+        private final int rotation;
+
+        Text(byte[] bytes, int offset, int length) {
+            this(bytes, null, offset, length, 0);
+        }
+
+        Text(int[] ints) {
+            this(null, ints, 0, ints.length, 0);
+        }
+
+        private Text(byte[] bytes, int[] ints, int offset, int length, int rotation) {
+            this.bytes = bytes;
+            this.ints = ints;
+            this.offset = offset;
+            this.length = length;
+            this.rotation = rotation;
+        }
+
+        // the first p symbols of this view, starting from the rth
+        Text rotate(int r, int p) {
+            return new Text(bytes, ints, offset, p, r);
+        }
+
+        // the ith symbol
+        int at(int i) {
+            int j = i + rotation;
+            if (j >= length) j -= length;
+            return bytes != null ? bytes[offset + j] & 0xff : ints[offset + j];
+        }
+    }
+}
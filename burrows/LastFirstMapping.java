@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * The class LastFirstMapping inverts the Burrows-Wheeler transform of a block
+ * of bytes. The last-to-first mapping and the sorted first column are packed
+ * into one int per entry, the next index in the upper 24 bits and the byte in
+ * the lower 8 bits, so each output byte costs a single random memory access
+ * instead of two. Blocks of 2^24 bytes or more fall back to separate arrays.
+ * The tables are kept and reused between blocks, so an instance must not be
+ * shared between threads.
+ * 
+ * @author Karthikeyan
+ */
+public class LastFirstMapping {
+    private static final int R = 256;
+    private static final int MAX_PACKED = 1 << 24;   // largest packed block
+    private final int[] count = new int[R + 1];
+    private int[] table = new int[0];                 // packed next index and byte
+    private byte[] sorted = new byte[0];              // first column of large blocks
+
+    /**
+     * Inverse transforms the first n bytes of last with the given first index
+     * and writes the block to out.
+     * @param last the last column of the sorted rotations
+     * @param n the block length
+     * @param first the row of the original block
+     * @param out the array for the block
+     * @throws IllegalArgumentException if the arrays are null or shorter than
+     * n, or first out of range
+     */
+    public void invert(byte[] last, int n, int first, byte[] out) {
+        if (last == null || out == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        if (last.length < n || out.length < n)
+            throw new IllegalArgumentException("Arrays shorter than the block.");
+        if (n == 0) return;
+        if (first < 0 || first >= n)
+            throw new IllegalArgumentException(first + " out of prescribed range.");
+        if (table.length < n) table = new int[n];
+
+        Arrays.fill(count, 0);
+        for (int i = 0; i < n; i++)
+            count[(last[i] & 0xff) + 1]++;
+        for (int r = 1; r <= R; r++)
+            count[r] += count[r - 1];
+
+        if (n < MAX_PACKED) {
+            for (int i = 0; i < n; i++) {
+                int c = last[i] & 0xff;
+                table[count[c]++] = i << 8 | c;
+            }
+            for (int i = 0, p = first; i < n; i++) {
+                int e = table[p];
+                out[i] = (byte) e;
+                p = e >>> 8;
+            }
+            return;
+        }
+
+        if (sorted.length < n) sorted = new byte[n];
+        for (int i = 0; i < n; i++) {
+            int j = count[last[i] & 0xff]++;
+            table[j] = i;
+            sorted[j] = last[i];
+        }
+        for (int i = 0, p = first; i < n; i++, p = table[p])
+            out[i] = sorted[p];
+    }
+}
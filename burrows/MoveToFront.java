@@ -1,32 +1,33 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
 import edu.princeton.cs.algs4.BinaryStdIn;
 import edu.princeton.cs.algs4.BinaryStdOut;
 
 /**
  * The class MoveToFront provides static methods to encode and decode a sequence
- * of characters using move-to-front encoding algorithm.
+ * of characters using move-to-front encoding algorithm. The list is kept in
+ * a MoveToFrontIndex, which answers the small ranks of Burrows-Wheeler output
+ * in a few steps.
+ * The file methods memory-map the source and target files and code directly
+ * between the mapped buffers, one window of at most 1 GB at a time.
  * 
  * @author Karthikeyan
  */
 public class MoveToFront {
-    private static final int R = 256;
+    private static final int WINDOW = 1 << 30;  // bytes mapped at a time
 
     /**
      * Reads from standard input, applies move-to-front encoding and writes to
      * standard output.
      */
     public static void encode() {
-        char[] characters = new char[R];
-        for (char c = 0; c < R; c++) 
-            characters[c] = c;
-    
-        while (!BinaryStdIn.isEmpty()) {
-            char c = BinaryStdIn.readChar(); 
-            int i = search(characters, c);
-            BinaryStdOut.write(i, 8);  
-            for (; i > 0; i--) 
-                characters[i] = characters[i-1];
-            characters[i] = c; 
-        }
+        MoveToFrontIndex list = new MoveToFrontIndex();
+        while (!BinaryStdIn.isEmpty()) 
+            BinaryStdOut.write(list.encode(BinaryStdIn.readChar()), 8);  
         BinaryStdOut.close();
     }
 
@@ -35,33 +36,62 @@ public class MoveToFront {
      * standard output.
      */
     public static void decode() {
-        char[] characters = new char[R];
-        for (char c = 0; c < R; c++) {
-            characters[c] = c;
-        }
-    
-        while (!BinaryStdIn.isEmpty()) {
-            int i = BinaryStdIn.readChar();
-            char c = characters[i]; 
-            BinaryStdOut.write(c);    
-            for (; i > 0; i--) {
-                characters[i] = characters[i-1];
-            }
-            characters[i] = c;
-        }
+        MoveToFrontIndex list = new MoveToFrontIndex();
+        while (!BinaryStdIn.isEmpty()) 
+            BinaryStdOut.write((char) list.decode(BinaryStdIn.readChar()));    
         BinaryStdOut.close();
     }
 
-    // returns the index of first occurence of the target
-    private static int search(char[] a, char c) {
-        for (int i = 0; i < a.length; i++) 
-            if (a[i] == c) return i;
-        return -1;
+    /**
+     * Applies move-to-front encoding to the source file and writes to the
+     * target file.
+     * @param source the name of the file to encode
+     * @param target the name of the file to write
+     * @throws IllegalArgumentException if a file cannot be mapped
+     */
+    public static void encode(String source, String target) {
+        code(source, target, true);
+    }
+
+    /**
+     * Applies move-to-front decoding to the source file and writes to the
+     * target file.
+     * @param source the name of the file to decode
+     * @param target the name of the file to write
+     * @throws IllegalArgumentException if a file cannot be mapped
+     */
+    public static void decode(String source, String target) {
+        code(source, target, false);
+    }
+
+    // encodes or decodes the mapped source into the mapped target
+    private static void code(String source, String target, boolean encode) {
+        try (FileChannel in  = FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(target), StandardOpenOption.READ, 
+                                   StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            MoveToFrontIndex list = new MoveToFrontIndex();
+            long size = in.size();
+            for (long p = 0; p < size; p += WINDOW) {
+                int n = (int) Math.min(WINDOW, size - p);
+                MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, p, n);
+                MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, p, n);
+                for (int i = 0; i < n; i++) {
+                    int c = src.get(i) & 0xff;
+                    dst.put(i, (byte) (encode ? list.encode(c) : list.decode(c)));
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("could not map " + source + " to " + target, e);
+        }
     }
 
     // test client
     public static void main(String[] args) {
         if (args[0].equals("-")) encode();
+        else if (args[0].equals("-f")) encode(args[1], args[2]);
+        else if (args[0].equals("+f")) decode(args[1], args[2]);
         else decode();
     }
 }
@@ -0,0 +1,70 @@
+/**
+ * The class MoveToFrontIndex maintains the move-to-front list of the 256
+ * extended ASCII characters for encoders and decoders that code many blocks.
+ * The list is a plain array from front to back. Burrows-Wheeler output is
+ * mostly ranks 0 to 2, so the character at the front returns at once and the
+ * others are searched for and shifted in one pass over the first rank 
+ * entries, which for small ranks costs less than any index over the list.
+ * 
+ * @author Karthikeyan
+ */
+public class MoveToFrontIndex {
+    private static final int R = 256;
+    private final int[] list = new int[R];   // characters from front to back
+
+    /**
+     * Initialises the list with the characters in increasing order.
+     */
+    public MoveToFrontIndex() {
+        reset();
+    }
+
+    /**
+     * Resets the list to the characters in increasing order.
+     */
+    public void reset() {
+        for (int c = 0; c < R; c++)
+            list[c] = c;
+    }
+
+    /**
+     * Returns the position of the given character in the list and moves it
+     * to the front.
+     * @param c the character
+     * @throws IllegalArgumentException if c is not extended ASCII
+     * @return returns the position of the character before the move
+     */
+    public int encode(int c) {
+        if (c < 0 || c >= R)
+            throw new IllegalArgumentException(c + " out of prescribed range.");
+        int previous = list[0];
+        if (previous == c) return 0;
+
+        // shifting each character back by one until c is found
+        int i = 1;
+        for (int t = list[i]; t != c; t = list[++i]) {
+            list[i] = previous;
+            previous = t;
+        }
+        list[i] = previous;
+        list[0] = c;
+        return i;
+    }
+
+    /**
+     * Returns the character at the given position in the list and moves it
+     * to the front.
+     * @param rank the position
+     * @throws IllegalArgumentException if rank out of range
+     * @return returns the character at the position before the move
+     */
+    public int decode(int rank) {
+        if (rank < 0 || rank >= R)
+            throw new IllegalArgumentException(rank + " out of prescribed range.");
+        int c = list[rank];
+        for (int i = rank; i > 0; i--)
+            list[i] = list[i - 1];
+        list[0] = c;
+        return c;
+    }
+}
@@ -0,0 +1,247 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import edu.princeton.cs.algs4.BinaryStdIn;
+import edu.princeton.cs.algs4.BinaryStdOut;
+
+/**
+ * The class ParallelBurrowsWheeler provides static methods to apply the block
+ * Burrows-Wheeler transform and inverse transform, or the whole compression
+ * pipeline of BurrowsWheelerCodec, on a pool of worker threads. Blocks are 
+ * handed to the workers as they are read and the frames are written back in
+ * input order, so the output is byte-identical to the single-threaded block
+ * methods of BurrowsWheeler and to BurrowsWheelerCodec. The codec resets its
+ * move-to-front list and Huffman code for every block, so each block is 
+ * transformed, move-to-front and Huffman coded on its worker. At most two 
+ * blocks per worker are in flight at a time, which bounds the memory use and
+ * makes the reader wait for slow workers.
+ * 
+ * @author Karthikeyan
+ */
+public class ParallelBurrowsWheeler {
+    private static final int HEADER = 12;  // bytes of a codec frame header
+
+    /**
+     * Reads from standard input in blocks of the given size, transforms the
+     * blocks on the given number of threads and writes the frames to standard
+     * output.
+     * @param blockSize the block size in bytes
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if block size out of range or threads
+     * less than one
+     */
+    public static void transformBlocks(int blockSize, int threads) {
+        BurrowsWheeler.validateBlockSize(blockSize);
+        validateThreads(threads);
+        run(threads, 
+            frame -> readBlock(frame, blockSize, blockSize), 
+            frame -> frame.first = BurrowsWheeler.transform(frame.in, frame.n, frame.out, frame.index()),
+            frame -> {
+                BinaryStdOut.write(frame.n);
+                BinaryStdOut.write(frame.first);
+                for (int i = 0; i < frame.n; i++)
+                    BinaryStdOut.write(frame.out[i]);
+            });
+    }
+
+    /**
+     * Reads the frames written by transformBlocks from standard input, inverse
+     * transforms the blocks on the given number of threads and writes to 
+     * standard output.
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if threads less than one or a frame is
+     * corrupt
+     */
+    public static void inverseTransformBlocks(int threads) {
+        validateThreads(threads);
+        run(threads, 
+            frame -> {
+                int n = BinaryStdIn.readInt();
+                int first = BinaryStdIn.readInt();
+                if (n <= 0 || n > BurrowsWheeler.MAX_BLOCK_SIZE || first < 0 || first >= n)
+                    throw new IllegalArgumentException("Corrupt block frame.");
+                frame.ensureCapacity(n, n);
+                frame.n = n;
+                frame.first = first;
+                for (int i = 0; i < n; i++)
+                    frame.in[i] = BinaryStdIn.readByte();
+            },
+            frame -> frame.mapping().invert(frame.in, frame.n, frame.first, frame.out),
+            ParallelBurrowsWheeler::writeOut);
+    }
+
+    /**
+     * Reads from standard input in blocks of the given size, compresses the
+     * blocks with BurrowsWheelerCodec on the given number of threads and 
+     * writes the frames to standard output, byte for byte as the codec would.
+     * @param blockSize the block size in bytes
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if block size out of range or threads
+     * less than one
+     */
+    public static void compress(int blockSize, int threads) {
+        BurrowsWheeler.validateBlockSize(blockSize);
+        validateThreads(threads);
+        int bound = new BurrowsWheelerCodec(blockSize).maxCompressedLength(blockSize);
+        run(threads, 
+            frame -> readBlock(frame, blockSize, bound), 
+            frame -> {
+                ByteBuffer out = ByteBuffer.wrap(frame.out);
+                frame.codec().compress(ByteBuffer.wrap(frame.in, 0, frame.n), out);
+                frame.n = out.position();
+            },
+            ParallelBurrowsWheeler::writeOut);
+    }
+
+    /**
+     * Reads the frames written by compress or BurrowsWheelerCodec from 
+     * standard input, decompresses the blocks on the given number of threads
+     * and writes to standard output.
+     * @param threads the number of worker threads
+     * @throws IllegalArgumentException if threads less than one or a frame is
+     * corrupt
+     */
+    public static void expand(int threads) {
+        validateThreads(threads);
+        BurrowsWheelerCodec frameCodec = new BurrowsWheelerCodec(BurrowsWheeler.MAX_BLOCK_SIZE);
+        run(threads, 
+            frame -> {
+                int n = BinaryStdIn.readInt();
+                int first = BinaryStdIn.readInt();
+                int size = BinaryStdIn.readInt();
+                if (n <= 0 || n > BurrowsWheeler.MAX_BLOCK_SIZE || size < 0 
+                    || size > frameCodec.maxCompressedLength(n))
+                    throw new IllegalArgumentException("Corrupt block frame.");
+                frame.ensureCapacity(HEADER + size, n);
+                ByteBuffer.wrap(frame.in).putInt(n).putInt(first).putInt(size);
+                for (int i = 0; i < size; i++)
+                    frame.in[HEADER + i] = BinaryStdIn.readByte();
+                frame.n = HEADER + size;
+            },
+            frame -> {
+                ByteBuffer out = ByteBuffer.wrap(frame.out);
+                frame.codec().decompress(ByteBuffer.wrap(frame.in, 0, frame.n), out);
+                frame.n = out.position();
+            },
+            ParallelBurrowsWheeler::writeOut);
+    }
+
+    // reads frames until standard input is empty, runs the work on each frame
+    // on a pool of threads and writes the frames in input order, keeping at
+    // most two frames per thread in flight and reusing the written ones
+    private static void run(int threads, Consumer<Frame> read, Consumer<Frame> work, Consumer<Frame> write) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<Frame>> inFlight = new ArrayDeque<>();
+        ArrayDeque<Frame> free = new ArrayDeque<>();
+
+        try {
+            while (!BinaryStdIn.isEmpty()) {
+                if (inFlight.size() == 2 * threads) {
+                    Frame done = await(inFlight.poll());
+                    write.accept(done);
+                    free.push(done);
+                }
+                Frame frame = free.isEmpty() ? new Frame() : free.pop();
+                read.accept(frame);
+                inFlight.add(pool.submit(() -> {
+                    work.accept(frame);
+                    return frame;
+                }));
+            }
+            while (!inFlight.isEmpty())
+                write.accept(await(inFlight.poll()));
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        BinaryStdOut.close();
+    }
+
+    // reads the next block of at most blockSize bytes into the frame, whose
+    // output buffer gets room for outSize bytes
+    private static void readBlock(Frame frame, int blockSize, int outSize) {
+        frame.ensureCapacity(blockSize, outSize);
+        frame.n = 0;
+        while (frame.n < blockSize && !BinaryStdIn.isEmpty())
+            frame.in[frame.n++] = BinaryStdIn.readByte();
+    }
+
+    // writes the first n bytes of the output buffer of the frame
+    private static void writeOut(Frame frame) {
+        for (int i = 0; i < frame.n; i++)
+            BinaryStdOut.write(frame.out[i]);
+    }
+
+    // waits for the worker to finish the frame
+    private static Frame await(Future<Frame> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a block.", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) 
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // throw IllegalArgumentException if threads less than one
+    private static void validateThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads less than 1.");
+    }
+
+    // a block and its buffers, reused once written
+    private static class Frame {
+        byte[] in  = new byte[0];
+        byte[] out = new byte[0];
+        LastFirstMapping mapping;
+        BurrowsWheelerCodec codec;
+        int[] index;
+        int n, first;
+
+        void ensureCapacity(int inSize, int outSize) {
+            if (in.length < inSize) {
+                in = new byte[inSize];
+                index = null;
+            }
+            if (out.length < outSize) out = new byte[outSize];
+        }
+
+        int[] index() {
+            if (index == null) index = new int[in.length];
+            return index;
+        }
+
+        LastFirstMapping mapping() {
+            if (mapping == null) mapping = new LastFirstMapping();
+            return mapping;
+        }
+
+        BurrowsWheelerCodec codec() {
+            if (codec == null) codec = new BurrowsWheelerCodec(BurrowsWheeler.MAX_BLOCK_SIZE);
+            return codec;
+        }
+    }
+
+    // test client
+    public static void main(String[] args) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (args[0].equals("-") || args[0].equals("-c")) {
+            int blockSize = args.length > 1 ? Integer.parseInt(args[1]) : BurrowsWheeler.DEFAULT_BLOCK_SIZE;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : cores;
+            if (args[0].equals("-")) transformBlocks(blockSize, threads);
+            else                     compress(blockSize, threads);
+        }
+        else if (args[0].equals("+c")) expand(args.length > 1 ? Integer.parseInt(args[1]) : cores);
+        else inverseTransformBlocks(args.length > 1 ? Integer.parseInt(args[1]) : cores);
+    }
+}
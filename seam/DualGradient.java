@@ -0,0 +1,39 @@
+/**
+ * The class DualGradient is the dual-gradient energy function: the square 
+ * root of the sum of the squared red, green and blue differences of the left
+ * and right neighbours and of the upper and lower neighbours of a pixel. The
+ * border pixels have energy 1000 and the steps of a seam cost nothing.
+ * 
+ * @author Karthikeyan
+ */
+public class DualGradient implements EnergyFunction {
+    /** the energy of the border pixels */
+    public static final double BORDER_ENERGY = 1000.0;
+
+    @Override
+    public double energy(int[] rgb, int width, int height, int stride, int x, int y) {
+        if (x == 0 || y == 0 || x == width - 1 || y == height - 1) return BORDER_ENERGY;
+        int i = y * stride + x;
+        int xgradient = gradient(rgb[i - 1], rgb[i + 1]);
+        int ygradient = gradient(rgb[i - stride], rgb[i + stride]);
+        return Math.sqrt(xgradient + ygradient);
+    }
+
+    @Override
+    public double transition(int[] rgb, int width, int height, int stride, int x, int y, int dx) {
+        return 0.0;
+    }
+
+    @Override
+    public int radius() {
+        return 1;
+    }
+
+    // returns the sum of the squared channel differences of the pixels
+    static int gradient(int a, int b) {
+        int r = (b >> 16 & 255) - (a >> 16 & 255);
+        int g = (b >> 8 & 255) - (a >> 8 & 255);
+        int bl = (b & 255) - (a & 255);
+        return r * r + g * g + bl * bl;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * The interface EnergyFunction is the cost model of the seam carvers. The 
+ * cost of a vertical seam is the sum of the energies of its pixels plus the
+ * transition cost of each step from one row to the next; horizontal seams are
+ * costed as vertical seams of the transposed picture. The functions read the
+ * packed ARGB pixels of the carver, row y at offset y * stride, and their
+ * energies are cached, so the energy of a pixel must depend only on the pixels
+ * within radius() columns of it and be the same in the transposed picture.
+ * 
+ * @author Karthikeyan
+ */
+public interface EnergyFunction {
+
+    /**
+     * Returns the energy of pixel at column x and row y.
+     * @param rgb the packed pixels
+     * @param width the number of pixels in a row
+     * @param height the number of rows
+     * @param stride the row length of the buffer
+     * @param x the column index
+     * @param y the row index
+     * @return returns the energy of the pixel
+     */
+    double energy(int[] rgb, int width, int height, int stride, int x, int y);
+
+    /**
+     * Returns the cost of a vertical seam stepping into pixel (x, y) from the
+     * pixel (x + dx, y - 1) above it.
+     * @param rgb the packed pixels
+     * @param width the number of pixels in a row
+     * @param height the number of rows
+     * @param stride the row length of the buffer
+     * @param x the column index
+     * @param y the row index, at least one
+     * @param dx the column offset of the pixel above, -1, 0 or 1
+     * @return returns the cost of the step
+     */
+    double transition(int[] rgb, int width, int height, int stride, int x, int y, int dx);
+
+    /**
+     * Returns the invalidation radius: removing a seam pixel at column s can
+     * only change the energies of the columns [s - radius, s + radius - 1] of
+     * the narrower picture, next to those of the rows above and below.
+     * @return returns the invalidation radius
+     */
+    int radius();
+
+    /**
+     * Prepares the pixels of a newly loaded picture, before any energy is
+     * computed. The alpha byte of the pixels is free for the function to use
+     * and moves with the pixels as seams are removed.
+     * @param rgb the packed pixels
+     * @param width the number of pixels in a row
+     * @param height the number of rows
+     * @param stride the row length of the buffer
+     */
+    default void prepare(int[] rgb, int width, int height, int stride) { }
+}
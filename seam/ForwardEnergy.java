@@ -0,0 +1,39 @@
+/**
+ * The class ForwardEnergy is the forward energy cost model of Rubinstein,
+ * Shamir and Avidan. Instead of the energy of the removed pixels it costs the
+ * edges a seam creates: removing a pixel makes its left and right neighbours
+ * adjacent, and a diagonal step also makes the pixel above adjacent to the
+ * neighbour on the side of the step. Colour differences are the Euclidean
+ * distances of the red, green and blue values. All pixels have energy zero,
+ * so the cost is entirely in the transitions and no cached energy goes stale.
+ * 
+ * @author Karthikeyan
+ */
+public class ForwardEnergy implements EnergyFunction {
+
+    @Override
+    public double energy(int[] rgb, int width, int height, int stride, int x, int y) {
+        return 0.0;
+    }
+
+    @Override
+    public double transition(int[] rgb, int width, int height, int stride, int x, int y, int dx) {
+        int i = y * stride + x;
+        int left  = x > 0 ? rgb[i - 1] : rgb[i];
+        int right = x < width - 1 ? rgb[i + 1] : rgb[i];
+        double cost = difference(left, right);
+        if (dx < 0)      cost += difference(rgb[i - stride], left);
+        else if (dx > 0) cost += difference(rgb[i - stride], right);
+        return cost;
+    }
+
+    @Override
+    public int radius() {
+        return 0;
+    }
+
+    // returns the colour distance of the pixels
+    private static double difference(int a, int b) {
+        return Math.sqrt(DualGradient.gradient(a, b));
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * The class Mask adds protected and removed regions to another energy 
+ * function. Seams avoid the protected pixels and go through the removed 
+ * pixels first, so carving a removed region's width deletes it. The regions
+ * are written into the alpha byte of the pixels when a picture is loaded and
+ * move with the pixels as seams are removed.
+ * 
+ * @author Karthikeyan
+ */
+public class Mask implements EnergyFunction {
+    private static final int KEEP = 0xff, PROTECT = 0x80, REMOVE = 0x00;  // alpha labels
+    private static final double WEIGHT = 1e6;   // energy added or taken in the regions
+    private final EnergyFunction base;           // energy outside the regions
+    private final int width, height;             // size of the masked picture
+    private final byte[] labels;                 // label of each pixel, row by row
+
+    /**
+     * Initialises a mask for pictures of the given size, without regions.
+     * @param base the energy function outside the regions
+     * @param width the width of the picture
+     * @param height the height of the picture
+     * @throws IllegalArgumentException if base is null or size not positive
+     */
+    public Mask(EnergyFunction base, int width, int height) {
+        if (base == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("Invalid mask size.");
+        this.base = base;
+        this.width = width;
+        this.height = height;
+        labels = new byte[width * height];
+        Arrays.fill(labels, (byte) KEEP);
+    }
+
+    /**
+     * Protects the rectangle of w columns and h rows from column x and row y.
+     * @param x the left column
+     * @param y the top row
+     * @param w the number of columns
+     * @param h the number of rows
+     * @throws IllegalArgumentException if rectangle out of range
+     */
+    public void protect(int x, int y, int w, int h) {
+        label(x, y, w, h, PROTECT);
+    }
+
+    /**
+     * Marks the rectangle of w columns and h rows from column x and row y for
+     * removal.
+     * @param x the left column
+     * @param y the top row
+     * @param w the number of columns
+     * @param h the number of rows
+     * @throws IllegalArgumentException if rectangle out of range
+     */
+    public void remove(int x, int y, int w, int h) {
+        label(x, y, w, h, REMOVE);
+    }
+
+    /**
+     * Writes the regions into the alpha byte of the pixels.
+     * @throws IllegalArgumentException if the picture is not of the mask size
+     */
+    @Override
+    public void prepare(int[] rgb, int width, int height, int stride) {
+        if (width != this.width || height != this.height)
+            throw new IllegalArgumentException("Picture and mask sizes differ.");
+        base.prepare(rgb, width, height, stride);
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                rgb[y * stride + x] = rgb[y * stride + x] & 0xffffff | (labels[y * width + x] & 255) << 24;
+    }
+
+    @Override
+    public double energy(int[] rgb, int width, int height, int stride, int x, int y) {
+        double e = base.energy(rgb, width, height, stride, x, y);
+        int label = rgb[y * stride + x] >>> 24;
+        if (label == REMOVE)  return e - WEIGHT;
+        if (label == PROTECT) return e + WEIGHT;
+        return e;
+    }
+
+    @Override
+    public double transition(int[] rgb, int width, int height, int stride, int x, int y, int dx) {
+        return base.transition(rgb, width, height, stride, x, y, dx);
+    }
+
+    @Override
+    public int radius() {
+        return base.radius();
+    }
+
+    // labels the rectangle
+    private void label(int x, int y, int w, int h, int label) {
+        if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > width || y + h > height)
+            throw new IllegalArgumentException("Region out of range.");
+        for (int row = y; row < y + h; row++)
+            Arrays.fill(labels, row * width + x, row * width + x + w, (byte) label);
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * The class RetargetingExecutor resizes many independent pictures at once by
+ * seam carving, such as the thumbnails of an image service. The jobs run on
+ * a fixed pool of threads, one per core by default, and about capacity jobs
+ * wait for a thread: further submissions block until one finishes. Each
+ * thread keeps a few SeamCarverDP instances keyed by picture size and loads 
+ * the next picture of a size into its carver, so the pixel buffers and the
+ * search tables are allocated once per size and thread instead of per job.
+ * The executor counts the completed jobs and keeps the latencies of the
+ * recent ones, from submission to completion, for percentiles.
+ * 
+ * @author Karthikeyan
+ */
+public class RetargetingExecutor implements AutoCloseable {
+    private static final int CARVERS = 4;          // carvers kept by each thread
+    private static final int LATENCIES = 4096;     // recent latencies kept
+    private final ThreadPoolExecutor pool;         // threads running the jobs
+    private final Semaphore slots;                 // free places for running and waiting jobs
+    private final ThreadLocal<CarverCache> carvers = ThreadLocal.withInitial(CarverCache::new);
+    private final long start = System.nanoTime();  // creation time in nanoseconds
+    private final long[] latencies = new long[LATENCIES];  // ring of recent latencies in nanoseconds
+    private long completed;                        // jobs done, guarded by latencies
+    private long failed;                           // jobs failed, guarded by latencies
+
+    /**
+     * Initialises the executor with one thread per core and as many waiting
+     * jobs as threads.
+     */
+    public RetargetingExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initialises the executor with the given number of threads and of 
+     * waiting jobs.
+     * @param threads the number of threads
+     * @param capacity the number of jobs that may wait for a thread
+     * @throws IllegalArgumentException if threads or capacity less than one
+     */
+    public RetargetingExecutor(int threads, int capacity) {
+        if (threads < 1 || capacity < 1)
+            throw new IllegalArgumentException("Invalid executor parameters.");
+        pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new LinkedBlockingQueue<>());
+        // the slots bound the queue: a job releases its slot just before its
+        // thread is free, which a bounded queue could reject
+        slots = new Semaphore(threads + capacity);
+    }
+
+    /**
+     * Submits a job resizing the picture to the given size: seams are removed
+     * down to the target width and height and then inserted up to them. 
+     * Blocks while the queue is full. A job failing with a runtime exception
+     * completes the future exceptionally; an Error is left to the uncaught
+     * exception handler of the thread and the future never completes.
+     * @param picture the picture, which must not change until the job is done
+     * @param width the target width
+     * @param height the target height
+     * @throws IllegalArgumentException if picture is null or target width or
+     * height less than one
+     * @throws IllegalStateException if the executor is closed or the thread
+     * is interrupted while waiting
+     * @return returns the future resized picture
+     */
+    public Future<Picture> submit(Picture picture, int width, int height) {
+        if (picture == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("Invalid target size.");
+        if (pool.isShutdown())
+            throw new IllegalStateException("Executor closed.");
+        try {
+            slots.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a slot.", e);
+        }
+
+        long submitted = System.nanoTime();
+        CompletableFuture<Picture> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    result.complete(retarget(picture, width, height));
+                    record(System.nanoTime() - submitted, true);
+                }
+                catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                    record(System.nanoTime() - submitted, false);
+                }
+                finally {
+                    slots.release();
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            slots.release();
+            throw new IllegalStateException("Executor closed.", e);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of jobs waiting for a thread.
+     * @return returns the queue depth
+     */
+    public int queueDepth() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Returns the number of jobs completed successfully.
+     * @return returns the number of completed jobs
+     */
+    public long completed() {
+        synchronized (latencies) {
+            return completed;
+        }
+    }
+
+    /**
+     * Returns the number of jobs that failed.
+     * @return returns the number of failed jobs
+     */
+    public long failed() {
+        synchronized (latencies) {
+            return failed;
+        }
+    }
+
+    /**
+     * Returns the number of pictures resized per second since the executor
+     * was created.
+     * @return returns the throughput in images per second
+     */
+    public double throughput() {
+        return completed() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Returns the given percentile of the latencies of the recent jobs, from
+     * submission to completion, or zero if no job is done.
+     * @param p the percentile, such as 50 for the median
+     * @throws IllegalArgumentException if p not in [0, 100]
+     * @return returns the latency in milliseconds
+     */
+    public double latency(double p) {
+        if (p < 0 || p > 100)
+            throw new IllegalArgumentException("Percentile out of range.");
+        long[] recent;
+        synchronized (latencies) {
+            long n = completed + failed;
+            recent = Arrays.copyOf(latencies, (int) Math.min(n, LATENCIES));
+        }
+        if (recent.length == 0) return 0.0;
+        Arrays.sort(recent);
+        int rank = (int) Math.ceil(p / 100 * recent.length) - 1;
+        return recent[Math.max(0, rank)] / 1e6;
+    }
+
+    /**
+     * Stops accepting jobs and waits for the submitted ones to finish.
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while closing.", e);
+        }
+    }
+
+    // resizes the picture with the calling thread's carver for its size
+    private Picture retarget(Picture picture, int width, int height) {
+        long size = (long) picture.width() << 32 | picture.height();
+        CarverCache cache = carvers.get();
+        SeamCarverDP carver = cache.get(size);
+        if (carver == null) {
+            carver = new SeamCarverDP(picture);
+            cache.put(size, carver);
+        }
+        else carver.load(picture);
+
+        carver.resize(width, height);
+        return carver.picture();
+    }
+
+    // records the latency of a finished job in the ring
+    private void record(long nanos, boolean success) {
+        synchronized (latencies) {
+            latencies[(int) ((completed + failed) % LATENCIES)] = nanos;
+            if (success) completed++;
+            else         failed++;
+        }
+    }
+
+    // the least recently used carvers of a thread, keyed by picture size
+    private static final class CarverCache extends LinkedHashMap<Long, SeamCarverDP> {
+        private static final long serialVersionUID = 1L;
+
+        CarverCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, SeamCarverDP> eldest) {
+            return size() > CARVERS;
+        }
+    }
+
+    // test client: halves the width of random pictures of a few sizes
+    public static void main(String[] args) {
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int[][] sizes = { { 320, 240 }, { 640, 480 }, { 800, 600 } };
+        Picture[] pictures = new Picture[sizes.length];
+        Random random = new Random(42);
+        for (int i = 0; i < sizes.length; i++) {
+            pictures[i] = new Picture(sizes[i][0], sizes[i][1]);
+            for (int y = 0; y < sizes[i][1]; y++)
+                for (int x = 0; x < sizes[i][0]; x++)
+                    pictures[i].setRGB(x, y, random.nextInt(0x1000000));
+        }
+
+        RetargetingExecutor executor = new RetargetingExecutor();
+        try (executor) {
+            for (int j = 0; j < jobs; j++) {
+                Picture picture = pictures[j % pictures.length];
+                executor.submit(picture, picture.width() / 2, picture.height());
+                if (j % 50 == 49) 
+                    StdOut.println(j + 1 + " submitted, queue depth " + executor.queueDepth());
+            }
+        }
+        StdOut.printf("%d images, %.1f images/s%n", executor.completed(), executor.throughput());
+        StdOut.printf("latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms%n", 
+                      executor.latency(50), executor.latency(90), executor.latency(99));
+    }
+}
\ No newline at end of file
@@ -1,4 +1,3 @@
-import java.awt.Color;
 import java.util.Arrays;
 
 import edu.princeton.cs.algs4.Picture;
@@ -12,13 +11,33 @@ import edu.princeton.cs.algs4.StdOut;
  * path of pixels connected from the top to the bottom with one pixel in each
  * row. A horizontal seam is a path of pixels connected from the left to the
  * right with one pixel in each column.
+ * <p>
+ * The pixels are kept in the orientation of the last carve direction: a 
+ * horizontal seam is found and removed as a vertical seam of the transposed
+ * buffers, which are transposed back only when a vertical seam is next needed.
  * 
  * @author Karthikeyan
  */
 public class SeamCarver {
-    private static final double BORDER_ENERGY = 1000.0;
-    private Picture picture;     // picture to seam-carve
-    private double[][] energy;   // energy cache
+    private static final boolean VECTOR_SUPPORTED = isVectorSupported();
+    private final EnergyFunction function;   // cost model of the seams
+    private int[] rgb;           // packed pixels, row y at offset y * stride
+    private double[] energy;     // energy cache, same layout as rgb
+    private int[] spareRgb;      // transpose target of rgb
+    private double[] spareEnergy;    // transpose target of energy
+    private int width, height;   // size of the buffers
+    private int stride;          // row length of the buffers
+    private boolean transposed;  // true if the buffers hold the transpose
+
+    /**
+     * The engines available to compute the energy of all pixels at once.
+     */
+    public enum Engine {
+        /** one pixel at a time */
+        SCALAR,
+        /** the JDK Vector API, needs --add-modules jdk.incubator.vector */
+        VECTOR
+    }
 
     /**
      * Initialises the seam carver with the given picture.
@@ -26,12 +45,29 @@ public class SeamCarver {
      * @throws IllegalArgumentException if picture is null
      */
     public SeamCarver(Picture picture) {
-        if (picture == null)
+        this(picture, new DualGradient());
+    }
+
+    /**
+     * Initialises the seam carver with the given picture and energy function.
+     * @param picture the picture
+     * @param function the energy function
+     * @throws IllegalArgumentException if picture or function is null
+     */
+    public SeamCarver(Picture picture, EnergyFunction function) {
+        if (picture == null || function == null)
             throw new IllegalArgumentException("Null arguments not allowed.");
-        this.picture = new Picture(picture);
-        energy = new double[width()][height()];
-        for (double[] i : energy)
-            Arrays.fill(i, Double.NaN);
+        this.function = function;
+        width  = picture.width();
+        height = picture.height();
+        stride = width;
+        rgb = new int[width * height];
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                rgb[y * stride + x] = picture.getRGB(x, y);
+        function.prepare(rgb, width, height, stride);
+        energy = new double[width * height];
+        Arrays.fill(energy, Double.NaN);
     }
 
     /**
@@ -39,7 +75,13 @@ public class SeamCarver {
      * @return returns the current picture
      */
     public Picture picture() {
-        return new Picture(picture);
+        Picture picture = new Picture(width(), height());
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++) {
+                if (transposed) picture.setRGB(y, x, rgb[y * stride + x]);
+                else            picture.setRGB(x, y, rgb[y * stride + x]);
+            }
+        return picture;
     }
 
     /**
@@ -47,7 +89,7 @@ public class SeamCarver {
      * @return returns the width of the current picture
      */
     public int width() {
-        return picture.width();
+        return transposed ? height : width;
     }
 
     /**
@@ -55,7 +97,7 @@ public class SeamCarver {
      * @return returns the height of the current picture
      */
     public int height() {
-        return picture.height();
+        return transposed ? width : height;
     }
 
     /**
@@ -67,15 +109,39 @@ public class SeamCarver {
      */
     public double energy(int x, int y) {
         validateRange(x, y);
-        if (isBorder(x, y)) return BORDER_ENERGY;
+        return transposed ? energyAt(y, x) : energyAt(x, y);
+    }
 
-        // caching the energy calculation
-        if (Double.isNaN(energy[x][y])) {
-            int xgradient = gradient(picture.getRGB(x - 1, y), picture.getRGB(x + 1, y));
-            int ygradient = gradient(picture.getRGB(x, y - 1), picture.getRGB(x, y + 1));
-            energy[x][y] = Math.sqrt(xgradient + ygradient);
+    /**
+     * Computes the energy of every pixel at once with the VECTOR engine if
+     * the Vector API is available, or with the SCALAR engine otherwise. 
+     * Without it the energies are computed on first use.
+     * @return returns the engine used
+     */
+    public Engine computeEnergy() {
+        return computeEnergy(Engine.VECTOR);
+    }
+
+    /**
+     * Computes the energy of every pixel at once with the given engine. The
+     * VECTOR engine falls back to SCALAR if the jdk.incubator.vector module
+     * is not available or the energy function is not the dual gradient. Both
+     * give exactly the same energies.
+     * @param engine the engine
+     * @throws IllegalArgumentException if engine is null
+     * @return returns the engine used
+     */
+    public Engine computeEnergy(Engine engine) {
+        if (engine == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        if (engine == Engine.VECTOR && VECTOR_SUPPORTED && function instanceof DualGradient) {
+            VectorEnergy.compute(rgb, energy, width, height, stride);
+            return Engine.VECTOR;
         }
-        return energy[x][y];
+        for (int y = 0; y < height; y++)
+            for (int x = 0, i = y * stride; x < width; x++, i++)
+                energy[i] = function.energy(rgb, width, height, stride, x, y);
+        return Engine.SCALAR;
     }
 
     /**
@@ -84,20 +150,8 @@ public class SeamCarver {
      * number of the pixel to be removed from the row y of the image.
      */
     public int[] findVerticalSeam() {
-        int width = width(), height = height();
-        TopologicalGrid topological = new TopologicalGrid(width, height);
-        double[][] disTo = new double[width][height];
-        int[][] edgeTo   = new int[width][height];
-        fill(disTo, 0, 1, Double.POSITIVE_INFINITY);
-        
-        for (int[] indices : topological.vertical()) {
-            int x = indices[0], y = indices[1];
-            if (y == height - 1) continue;
-            if (x < width - 1)   relax(disTo, edgeTo, x, y, x + 1, y + 1, true);
-            if (x > 0)           relax(disTo, edgeTo, x, y, x - 1, y + 1, true);
-            relax(disTo, edgeTo, x, y, x, y + 1, true);
-        }
-        return traceVerticalSeam(disTo, edgeTo);
+        orient(false);
+        return findSeam();
     }
 
     /**
@@ -106,20 +160,8 @@ public class SeamCarver {
      * number of the pixel to be removed from the column x of the image.
      */
     public int[] findHorizontalSeam() {
-        int width = width(), height = height();
-        TopologicalGrid topological = new TopologicalGrid(width, height);
-        double[][] disTo = new double[width][height];
-        int[][] edgeTo   = new int[width][height];
-        fill(disTo, 1, 0, Double.POSITIVE_INFINITY);
-        
-        for (int[] indices : topological.horizontal()) {
-            int x = indices[0], y = indices[1];
-            if (x == width - 1) continue;
-            if (y < height - 1) relax(disTo, edgeTo, x, y, x + 1, y + 1, false);
-            if (y > 0)          relax(disTo, edgeTo, x, y, x + 1, y - 1, false);
-            relax(disTo, edgeTo, x, y, x + 1, y, false);
-        }
-        return traceHorizontalSeam(disTo, edgeTo);
+        orient(true);
+        return findSeam();
     }
 
     /**
@@ -132,19 +174,8 @@ public class SeamCarver {
         validateVerticalSeam(seam);
         if (width() < 2)
             throw new IllegalArgumentException("Picture width less than 2.");
-
-        Picture pic = new Picture(width() - 1, height());
-        for (int y = 0; y < pic.height(); y++) {
-            for (int x = 0; x < pic.width(); x++) {
-                Color color = picture.get(x < seam[y] ? x : x + 1, y);
-                pic.set(x, y, color);
-
-                // avoiding energy recalculation, resetting only affected pixels
-                if (x >= seam[y]) energy[x][y] = energy[x+1][y];
-                if (seam[y] - 1 == x || seam[y] == x) energy[x][y] = Double.NaN;
-            }
-        }
-        picture = pic;
+        orient(false);
+        removeSeam(seam);
     }
 
     /**
@@ -157,19 +188,153 @@ public class SeamCarver {
         validateHorizontalSeam(seam);
         if (height() < 2)
             throw new IllegalArgumentException("Picture height less than 2.");
+        orient(true);
+        removeSeam(seam);
+    }
+
+    /**
+     * Returns up to k pairwise disjoint vertical seams of the current picture,
+     * as SeamCarverDP does, searched over the pixels and energies of this
+     * carver without copying them.
+     * @param k the number of seams
+     * @throws IllegalArgumentException if k not in [1, width()]
+     * @return returns the seams, each as returned by findVerticalSeam()
+     */
+    public int[][] findVerticalSeams(int k) {
+        if (k < 1 || k > width())
+            throw new IllegalArgumentException("Invalid number of seams.");
+        orient(false);
+        return findSeams(k);
+    }
+
+    /**
+     * Returns up to k pairwise disjoint horizontal seams of the current 
+     * picture, as findVerticalSeams does for vertical seams.
+     * @param k the number of seams
+     * @throws IllegalArgumentException if k not in [1, height()]
+     * @return returns the seams, each as returned by findHorizontalSeam()
+     */
+    public int[][] findHorizontalSeams(int k) {
+        if (k < 1 || k > height())
+            throw new IllegalArgumentException("Invalid number of seams.");
+        orient(true);
+        return findSeams(k);
+    }
 
-        Picture pic = new Picture(width(), height() - 1);
-        for (int x = 0; x < width(); x++) {
-            for (int y = 0; y < pic.height(); y++) {
-                Color color = picture.get(x, y < seam[x] ? y : y + 1);
-                pic.set(x, y, color); 
+    /**
+     * Enlarges the picture to the given size, widening before heightening,
+     * as SeamCarverDP does: each pass inserts next to the pixels of the 
+     * cheapest disjoint seams, at most half the current width or height of 
+     * them, the average of the pixel and its neighbour.
+     * @param targetWidth the width to enlarge to
+     * @param targetHeight the height to enlarge to
+     * @throws IllegalArgumentException if target width or height is less 
+     * than the current one
+     * @return returns the enlarged picture
+     */
+    public Picture enlargeTo(int targetWidth, int targetHeight) {
+        if (targetWidth < width() || targetHeight < height())
+            throw new IllegalArgumentException("Invalid target size.");
+
+        enlarge(false, targetWidth - width());
+        enlarge(true, targetHeight - height());
+        return picture();
+    }
+
+    // finds the vertical seam of the buffers
+    private int[] findSeam() {
+        TopologicalGrid topological = new TopologicalGrid(width, height);
+        double[] disTo = new double[width * height];
+        int[] edgeTo   = new int[width * height];
+        Arrays.fill(disTo, width, disTo.length, Double.POSITIVE_INFINITY);
+        
+        for (int[] indices : topological.vertical()) {
+            int x = indices[0], y = indices[1];
+            if (y == height - 1) continue;
+            if (x < width - 1)   relax(disTo, edgeTo, x, y, x + 1);
+            if (x > 0)           relax(disTo, edgeTo, x, y, x - 1);
+            relax(disTo, edgeTo, x, y, x);
+        }
+        return traceSeam(disTo, edgeTo);
+    }
+
+    // finds up to k disjoint vertical seams of the buffers with the search
+    // of SeamCarverDP, which shares the buffers and the energy cache
+    private int[][] findSeams(int k) {
+        return new SeamCarverDP(rgb, energy, width, height, stride, function, null).findVerticalSeams(k);
+    }
+
+    // inserts k seams in the given direction, at most half the width per pass
+    private void enlarge(boolean horizontal, int k) {
+        while (k > 0) {
+            orient(horizontal);
+            int[][] seams = findSeams(Math.min(k, Math.max(1, width / 2)));
+            int[] wider = new int[(width + seams.length) * height];
+            SeamCarverDP.insertSeams(rgb, width, height, stride, seams, wider);
+            rgb = wider;
+            width += seams.length;
+            stride = width;
+            energy = new double[width * height];
+            Arrays.fill(energy, Double.NaN);
+            spareRgb = null;
+            spareEnergy = null;
+            k -= seams.length;
+        }
+    }
+
+    // removes the vertical seam of the buffers
+    private void removeSeam(int[] seam) {
+        // shifting each row left over the seam pixel in place
+        for (int y = 0; y < height; y++) {
+            int i = y * stride + seam[y];
+            System.arraycopy(rgb, i + 1, rgb, i, width - seam[y] - 1);
+            System.arraycopy(energy, i + 1, energy, i, width - seam[y] - 1);
+        }
+        width--;
+
+        // avoiding energy recalculation, resetting only affected pixels
+        int r = function.radius();
+        for (int y = 0; y < height; y++) {
+            int lo = seam[y], hi = seam[y];
+            if (y > 0)          { lo = Math.min(lo, seam[y - 1]); hi = Math.max(hi, seam[y - 1]); }
+            if (y < height - 1) { lo = Math.min(lo, seam[y + 1]); hi = Math.max(hi, seam[y + 1]); }
+            for (int x = Math.max(0, lo - r); x <= Math.min(width - 1, hi + r - 1); x++)
+                energy[y * stride + x] = Double.NaN;
+        }
+    }
 
-                // avoiding recalculation, resetting only the affected pixels
-                if (y >= seam[x]) energy[x][y] = energy[x][y+1];     
-                if (seam[x] - 1 == y || seam[x] == y) energy[x][y] = Double.NaN;    
+    // transposes the buffers if they are not in the given orientation
+    private void orient(boolean horizontal) {
+        if (transposed == horizontal) return;
+        if (spareRgb == null) {
+            spareRgb = new int[rgb.length];
+            spareEnergy = new double[energy.length];
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                spareRgb[x * height + y] = rgb[y * stride + x];
+                spareEnergy[x * height + y] = energy[y * stride + x];
             }
         }
-        picture = pic;
+        int[] t = rgb;
+        rgb = spareRgb;
+        spareRgb = t;
+        double[] e = energy;
+        energy = spareEnergy;
+        spareEnergy = e;
+        stride = height;
+        height = width;
+        width = stride;
+        transposed = horizontal;
+    }
+
+    // returns the energy of the pixel at column x and row y of the buffers
+    private double energyAt(int x, int y) {
+        // caching the energy calculation
+        int i = y * stride + x;
+        if (Double.isNaN(energy[i]))
+            energy[i] = function.energy(rgb, width, height, stride, x, y);
+        return energy[i];
     }
 
     // throw IllegalArgumentException if vertical seam is invalid
@@ -206,74 +371,45 @@ public class SeamCarver {
         }
     }
 
-    // trace back the vertical seam
-    private int[] traceVerticalSeam(double[][] disTo, int[][] edgeTo) {
-        int[] seam = new int[height()];
-        int width = width(), height = height();
+    // trace back the vertical seam of the buffers
+    private int[] traceSeam(double[] disTo, int[] edgeTo) {
+        int[] seam = new int[height];
+        int last = (height - 1) * width;
         int min = 0;
 
         // finding minimum energy pixel from the bottom border
         for (int x = 0; x < width; x++) {
-            if (disTo[x][height - 1] < disTo[min][height - 1])
+            if (disTo[last + x] < disTo[last + min])
                 min = x;
         }
         
         // finding the path from the minimum energy pixel to top 
         for (int y = height - 1; y >= 0; y--) {
             seam[y] = min;
-            min = min + edgeTo[min][y];
+            min = min + edgeTo[y * width + min];
         }
         return seam;
     }
 
-    // trace back the horizontal seam
-    private int[] traceHorizontalSeam(double[][] disTo, int[][] edgeTo) {
-        int[] seam = new int[width()];
-        int width = width(), height = height();
-        int min = 0;
-
-        // finding minimum energy pixel in the right border
-        for (int y = 0; y < height; y++) {
-            if (disTo[width - 1][y] < disTo[width - 1][min])
-                min = y;
+    // relax the edge from pixel (x, y) to pixel (x1, y + 1)
+    private void relax(double[] disTo, int[] edgeTo, int x, int y, int x1) {
+        double e = energyAt(x1, y + 1)
+                 + function.transition(rgb, width, height, stride, x1, y + 1, x - x1);
+        int from = y * width + x, to = from + width + x1 - x;
+        if (disTo[from] + e < disTo[to]) {
+            disTo[to] = disTo[from] + e;
+            edgeTo[to] = x - x1;
         }
-        
-        // finding the path from the minimum energy pixel to left border
-        for (int x = width - 1; x >= 0; x--) {
-            seam[x] = min;
-            min = min + edgeTo[x][min];
-        }
-        return seam;
     }
 
-    // relax the edge
-    private void relax(double[][] disTo, int[][] edgeTo, int x, int y, int x1, int y1, boolean isVertical) {
-        double e = energy(x1, y1);
-        if (disTo[x][y] + e < disTo[x1][y1]) {
-            disTo[x1][y1] = disTo[x][y] + e;
-            edgeTo[x1][y1] = isVertical ? x - x1 : y - y1;
+    // returns true if the Vector API module is available
+    private static boolean isVectorSupported() {
+        try {
+            return VectorEnergy.lanes() > 1;
+        }
+        catch (LinkageError e) {
+            return false;
         }
-    }
-
-    // fills the given array with given value
-    private void fill(double[][] a, int x, int y, double value) {
-        int width = width(), height = height();
-        for (int i = x; i < width; i++) 
-            for (int j = y; j < height; j++) 
-                a[i][j] = value;
-    }
-
-    // returns the gradient of the pixel
-    private int gradient(int x, int y) {
-        int r = (y >> 16 & 255) - (x >> 16 & 255);
-        int g = (y >> 8 & 255) - (x >> 8 & 255);
-        int b = (y & 255) - (x & 255);
-        return r * r + g * g + b * b;
-    }
-
-    // returns true if border pixel
-    private boolean isBorder(int x, int y) {
-        return x == 0 || y == 0 || x == width() - 1 || y == height() - 1; 
     }
 
     // throw IllegalArgumentException if pixel out of range
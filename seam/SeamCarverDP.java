@@ -1,9 +1,13 @@
-import java.awt.Color;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import edu.princeton.cs.algs4.Picture;
 import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
 
 /**
  * The class SeamCarver provides methods to seam-carve a picture. Seam-carving
@@ -12,13 +16,37 @@ import edu.princeton.cs.algs4.StdOut;
  * path of pixels connected from the top to the bottom with one pixel in each
  * row. A horizontal seam is a path of pixels connected from the left to the
  * right with one pixel in each column.
+ * <p>
+ * The pixels are kept in the orientation of the last carve direction: a 
+ * horizontal seam is found and removed as a vertical seam of the transposed
+ * buffers, which are transposed back only when a vertical seam is next needed.
+ * <p>
+ * The search tables are scratch arrays owned by the carver and reused from
+ * one seam to the next: a byte per pixel for the step to the row above, and
+ * two rows of cumulative energies, or the full table of eight bytes per pixel
+ * for carveTo and the multi-seam search, which need it kept. The multi-seam
+ * search also keeps a flag per pixel for the pixels its seams have taken.
  * 
  * @author Karthikeyan
  */
 public class SeamCarverDP {
-    private static final double BORDER_ENERGY = 1000.0;  // border pixel energy
-    private Picture picture;                             // picture to seam curve
-    private double[][] energy;                           // pixel energy cache
+    private static final int PARALLEL_WIDTH = 2048;      // narrowest row relaxed in parallel
+    private static final int CHUNK = 512;                // columns relaxed by one task
+    private final ForkJoinPool pool;                     // pool relaxing wide rows, or null
+    private final EnergyFunction function;               // cost model of the seams
+    private int[] rgb;                                   // packed pixels, row y at y * stride
+    private double[] energy;                             // pixel energy cache, laid out as rgb
+    private int[] spareRgb;                              // transpose and insertion target of rgb
+    private double[] spareEnergy;                        // transpose and insertion target of energy
+    private int width, height;                           // size of the buffers
+    private int stride;                                  // row length of the buffers
+    private boolean transposed;                          // true if the buffers hold the transpose
+    private double[] disTo = new double[0];              // scratch: full cumulative energy table
+    private double[] upper = new double[0];              // scratch: cumulative energies of a row
+    private double[] lower = new double[0];              // scratch: cumulative energies of the next row
+    private byte[] edgeTo = new byte[0];                 // scratch: step to the row above, -1, 0 or 1
+    private long[] order = new long[0];                  // scratch: bottom row sort keys of the multi-seam search
+    private boolean[] used = new boolean[0];             // scratch: pixels taken by the seams found so far
 
     /**
      * Initialises the seam carver with the given picture.
@@ -26,12 +54,89 @@ public class SeamCarverDP {
      * @throws IllegalArgumentException if picture is null
      */
     public SeamCarverDP(Picture picture) {
+        this(picture, new DualGradient(), null);
+    }
+
+    /**
+     * Initialises the seam carver with the given picture and energy function.
+     * @param picture the picture
+     * @param function the energy function
+     * @throws IllegalArgumentException if picture or function is null
+     */
+    public SeamCarverDP(Picture picture, EnergyFunction function) {
+        this(picture, function, null);
+    }
+
+    /**
+     * Initialises the seam carver with the given picture. The rows of the
+     * cumulative energy table are split into chunks relaxed on the given
+     * pool, one row after the other, once the picture is wide enough. The
+     * seams are the same as without a pool.
+     * @param picture the picture
+     * @param pool the pool to relax wide rows on, or null to relax serially
+     * @throws IllegalArgumentException if picture is null
+     */
+    public SeamCarverDP(Picture picture, ForkJoinPool pool) {
+        this(picture, new DualGradient(), pool);
+    }
+
+    /**
+     * Initialises the seam carver with the given picture and energy function,
+     * relaxing wide rows on the given pool.
+     * @param picture the picture
+     * @param function the energy function
+     * @param pool the pool to relax wide rows on, or null to relax serially
+     * @throws IllegalArgumentException if picture or function is null
+     */
+    public SeamCarverDP(Picture picture, EnergyFunction function, ForkJoinPool pool) {
+        if (picture == null)
+            throw new IllegalArgumentException("Picture is null.");
+        if (function == null)
+            throw new IllegalArgumentException("Energy function is null.");
+        this.pool = pool;
+        this.function = function;
+        rgb = new int[0];
+        energy = new double[0];
+        load(picture);
+    }
+
+    // initialises the seam carver over the given prepared pixels and energy
+    // cache, without copying them, such as the buffers of a SeamCarver
+    SeamCarverDP(int[] rgb, double[] energy, int width, int height, int stride, 
+                 EnergyFunction function, ForkJoinPool pool) {
+        this.pool = pool;
+        this.function = function;
+        this.rgb = rgb;
+        this.energy = energy;
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+    }
+
+    /**
+     * Replaces the current picture with the given one, such as the next frame
+     * of a video, reusing the buffers when they are large enough.
+     * @param picture the picture
+     * @throws IllegalArgumentException if picture is null
+     */
+    public void load(Picture picture) {
         if (picture == null)
             throw new IllegalArgumentException("Picture is null.");
-        this.picture = new Picture(picture);
-        energy = new double[width()][height()];
-        for (int i = 0; i < energy.length; i++)
-            Arrays.fill(energy[i], Double.NaN);
+        width  = picture.width();
+        height = picture.height();
+        stride = width;
+        transposed = false;
+        if (rgb.length < width * height) {
+            rgb = new int[width * height];
+            energy = new double[width * height];
+            spareRgb = null;
+            spareEnergy = null;
+        }
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                rgb[y * stride + x] = picture.getRGB(x, y);
+        function.prepare(rgb, width, height, stride);
+        Arrays.fill(energy, 0, width * height, Double.NaN);
     }
 
     /**
@@ -39,7 +144,13 @@ public class SeamCarverDP {
      * @return returns the current picture
      */
     public Picture picture() {
-        return new Picture(picture);
+        Picture picture = new Picture(width(), height());
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++) {
+                if (transposed) picture.setRGB(y, x, rgb[y * stride + x]);
+                else            picture.setRGB(x, y, rgb[y * stride + x]);
+            }
+        return picture;
     }
 
     /**
@@ -47,7 +158,7 @@ public class SeamCarverDP {
      * @return returns the width of the current picture
      */
     public int width() {
-        return picture.width();
+        return transposed ? height : width;
     }
 
     /**
@@ -55,7 +166,7 @@ public class SeamCarverDP {
      * @return returns the height of the current picture
      */
     public int height() {
-        return picture.height();
+        return transposed ? width : height;
     }
 
     /**
@@ -67,15 +178,7 @@ public class SeamCarverDP {
      */
     public double energy(int x, int y) {
         validateRange(x, y);
-        if (isBorder(x, y)) return BORDER_ENERGY;
-
-        // caching the energy calculation
-        if (Double.isNaN(energy[x][y])) {
-            int xgradient = gradient(picture.getRGB(x - 1, y), picture.getRGB(x + 1, y));
-            int ygradient = gradient(picture.getRGB(x, y - 1), picture.getRGB(x, y + 1));
-            energy[x][y] = Math.sqrt(xgradient + ygradient);
-        }
-        return energy[x][y];
+        return transposed ? energyAt(y, x) : energyAt(x, y);
     }
 
     /**
@@ -84,14 +187,63 @@ public class SeamCarverDP {
      * number of the pixel to be removed from the row y of the image
      */
     public int[] findVerticalSeam() {
-        int width = width(), height = height();
-        double[][] disTo = new double[width][height];
-        int[][] edgeTo   = new int[width][height];
+        orient(false);
+        return findSeam();
+    }
 
-        for (int y = 1; y < height; y++) 
-            for (int x = 0; x < width; x++)
-                relaxVertical(disTo, edgeTo, x, y);
-        return traceVerticalSeam(disTo, edgeTo);  
+    /**
+     * Returns the vertical seam of least energy among the seams that stay 
+     * within band columns of the given guide seam in every row, such as the
+     * seam removed at the same step from the previous frame of a video. Only
+     * the pixels in the band are relaxed, so the search costs O(H * band).
+     * @param guide the guide seam
+     * @param band the number of columns the seam may stray from the guide
+     * @throws IllegalArgumentException if invalid guide seam or band negative
+     * @return returns an array of length H such that entry y is the column 
+     * number of the pixel to be removed from the row y of the image
+     */
+    public int[] findVerticalSeam(int[] guide, int band) {
+        validateVerticalSeam(guide);
+        if (band < 0)
+            throw new IllegalArgumentException("Negative band.");
+        orient(false);
+        return findSeam(guide, band);
+    }
+
+    /**
+     * Returns an approximate vertical seam for very large pictures. The seam
+     * is found on the picture shrunk by the given factor, each pixel the 
+     * average of a factor-by-factor block, and refined at full resolution 
+     * within band columns of the scaled up coarse seam, as findVerticalSeam 
+     * does with a guide. The search costs O(W * H / factor^2 + H * band) on
+     * top of one pass over the pixels to shrink them.
+     * @param factor the downsampling factor
+     * @param band the number of columns the seam may stray from the coarse one
+     * @throws IllegalArgumentException if factor less than one or band negative
+     * @return returns an array of length H such that entry y is the column 
+     * number of the pixel to be removed from the row y of the image
+     */
+    public int[] findApproximateVerticalSeam(int factor, int band) {
+        if (factor < 1 || band < 0)
+            throw new IllegalArgumentException("Invalid factor or band.");
+        orient(false);
+        return findApproximateSeam(factor, band);
+    }
+
+    /**
+     * Returns an approximate horizontal seam for very large pictures, as 
+     * findApproximateVerticalSeam does for vertical seams.
+     * @param factor the downsampling factor
+     * @param band the number of rows the seam may stray from the coarse one
+     * @throws IllegalArgumentException if factor less than one or band negative
+     * @return returns an array of length W such that entry x is the row 
+     * number of the pixel to be removed from the column x of the image
+     */
+    public int[] findApproximateHorizontalSeam(int factor, int band) {
+        if (factor < 1 || band < 0)
+            throw new IllegalArgumentException("Invalid factor or band.");
+        orient(true);
+        return findApproximateSeam(factor, band);
     }
 
     /**
@@ -100,14 +252,8 @@ public class SeamCarverDP {
      * number of the pixel to be removed from the column x of the image
      */
     public int[] findHorizontalSeam() {
-        int width = width(), height = height();
-        double[][] disTo = new double[width][height];
-        int[][] edgeTo   = new int[width][height];
-
-        for (int x = 1; x < width; x++)
-            for (int y = 0; y < height; y++)
-                relaxHorizontal(disTo, edgeTo, x, y);
-        return traceHorizontalSeam(disTo, edgeTo);
+        orient(true);
+        return findSeam();
     }
 
     /**
@@ -120,19 +266,8 @@ public class SeamCarverDP {
         validateVerticalSeam(seam);
         if (width() < 2)
             throw new IllegalArgumentException("Picture width less than 2.");
-
-        Picture pic = new Picture(width() - 1, height());
-        for (int y = 0; y < pic.height(); y++) {
-            for (int x = 0; x < pic.width(); x++) {
-                Color color = picture.get(x < seam[y] ? x : x + 1, y);
-                pic.set(x, y, color);
-
-                // avoiding energy recalculation, resetting only affected pixels
-                if (x >= seam[y]) energy[x][y] = energy[x+1][y];
-                if (seam[y] - 1 == x || seam[y] == x) energy[x][y] = Double.NaN;
-            }
-        }
-        picture = pic;
+        orient(false);
+        removeSeam(seam);
     }
 
     /**
@@ -145,89 +280,650 @@ public class SeamCarverDP {
         validateHorizontalSeam(seam);
         if (height() < 2)
             throw new IllegalArgumentException("Picture height less than 2.");
+        orient(true);
+        removeSeam(seam);
+    }
 
-        Picture pic = new Picture(width(), height() - 1);
-        for (int x = 0; x < width(); x++) {
-            for (int y = 0; y < pic.height(); y++) {
-                Color color = picture.get(x, y < seam[x] ? y : y + 1);
-                pic.set(x, y, color); 
+    /**
+     * Returns up to k pairwise disjoint vertical seams of the current picture.
+     * As many seams as possible are traced back from one cumulative energy 
+     * table, cheapest first, the first being the seam of findVerticalSeam().
+     * A seam running into a pixel of a cheaper one takes the cheapest free 
+     * pixel above instead, and is dropped if there is none. When a table runs
+     * out of seams the next one is built around the pixels already taken, so
+     * a few tables give k seams. Fewer than k seams are returned only if no
+     * other seam avoids the ones found.
+     * @param k the number of seams
+     * @throws IllegalArgumentException if k not in [1, width()]
+     * @return returns the seams, each as returned by findVerticalSeam()
+     */
+    public int[][] findVerticalSeams(int k) {
+        if (k < 1 || k > width())
+            throw new IllegalArgumentException("Invalid number of seams.");
+        orient(false);
+        return findSeams(k);
+    }
 
-                // avoiding recalculation, resetting only the affected pixels
-                if (y >= seam[x]) energy[x][y] = energy[x][y+1];     
-                if (seam[x] - 1 == y || seam[x] == y) energy[x][y] = Double.NaN;    
-            }
+    /**
+     * Returns up to k pairwise disjoint horizontal seams of the current 
+     * picture in order of increasing energy, as findVerticalSeams does for 
+     * vertical seams.
+     * @param k the number of seams
+     * @throws IllegalArgumentException if k not in [1, height()]
+     * @return returns the seams, each as returned by findHorizontalSeam()
+     */
+    public int[][] findHorizontalSeams(int k) {
+        if (k < 1 || k > height())
+            throw new IllegalArgumentException("Invalid number of seams.");
+        orient(true);
+        return findSeams(k);
+    }
+
+    /**
+     * Removes the pairwise disjoint vertical seams, given in the coordinates
+     * of the current picture, in one pass over the pixels.
+     * @param seams the seams to remove
+     * @throws IllegalArgumentException if an invalid seam, two seams sharing
+     * a pixel or less than one column left
+     */
+    public void removeVerticalSeams(int[][] seams) {
+        if (seams == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        for (int[] seam : seams)
+            validateVerticalSeam(seam);
+        if (seams.length >= width())
+            throw new IllegalArgumentException("Too many seams.");
+        orient(false);
+        validateDisjoint(seams);
+        removeSeams(seams);
+    }
+
+    /**
+     * Removes the pairwise disjoint horizontal seams, given in the coordinates
+     * of the current picture, in one pass over the pixels.
+     * @param seams the seams to remove
+     * @throws IllegalArgumentException if an invalid seam, two seams sharing
+     * a pixel or less than one row left
+     */
+    public void removeHorizontalSeams(int[][] seams) {
+        if (seams == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        for (int[] seam : seams)
+            validateHorizontalSeam(seam);
+        if (seams.length >= height())
+            throw new IllegalArgumentException("Too many seams.");
+        orient(true);
+        validateDisjoint(seams);
+        removeSeams(seams);
+    }
+
+    /**
+     * Enlarges the picture to the given size, widening before heightening. 
+     * Each pass finds the cheapest disjoint seams, at most half the current
+     * width or height of them, and inserts next to each seam pixel the 
+     * average of the pixel and its neighbour, in one rebuild of the pixels.
+     * @param targetWidth the width to enlarge to
+     * @param targetHeight the height to enlarge to
+     * @throws IllegalArgumentException if target width or height is less 
+     * than the current one
+     * @return returns the enlarged picture
+     */
+    public Picture enlargeTo(int targetWidth, int targetHeight) {
+        if (targetWidth < width() || targetHeight < height())
+            throw new IllegalArgumentException("Invalid target size.");
+
+        enlarge(false, targetWidth - width());
+        enlarge(true, targetHeight - height());
+        return picture();
+    }
+
+    /**
+     * Carves the picture down to the given size, removing the vertical seams
+     * before the horizontal ones. The cumulative energy table is kept from
+     * one seam to the next and recomputed only in the cone below the removed
+     * seam, as far as its entries actually change.
+     * @param targetWidth the width to carve to
+     * @param targetHeight the height to carve to
+     * @throws IllegalArgumentException if target width or height is less 
+     * than one or greater than the current one
+     * @return returns the carved picture
+     */
+    public Picture carveTo(int targetWidth, int targetHeight) {
+        if (targetWidth < 1 || targetWidth > width() || targetHeight < 1 || targetHeight > height())
+            throw new IllegalArgumentException("Invalid target size.");
+
+        carve(false, width() - targetWidth);
+        carve(true, height() - targetHeight);
+        return picture();
+    }
+
+    /**
+     * Resizes the picture to the given size without building a picture: the
+     * seams are removed down to the target width and height as carveTo does
+     * and then inserted up to them as enlargeTo does. Call picture() for the
+     * result.
+     * @param targetWidth the width to resize to
+     * @param targetHeight the height to resize to
+     * @throws IllegalArgumentException if target width or height is less 
+     * than one
+     */
+    public void resize(int targetWidth, int targetHeight) {
+        if (targetWidth < 1 || targetHeight < 1)
+            throw new IllegalArgumentException("Invalid target size.");
+
+        carve(false, Math.max(0, width() - targetWidth));
+        carve(true, Math.max(0, height() - targetHeight));
+        enlarge(false, Math.max(0, targetWidth - width()));
+        enlarge(true, Math.max(0, targetHeight - height()));
+    }
+
+    // finds the vertical seam of the buffers, keeping only two rows of the
+    // cumulative energy table
+    private int[] findSeam() {
+        ensureScratch(false);
+        Arrays.fill(upper, 0, width, 0.0);
+        for (int y = 1; y < height; y++) {
+            relaxRow(upper, 0, lower, 0, y);
+            double[] t = upper;
+            upper = lower;
+            lower = t;
         }
-        picture = pic;
+        return traceSeam(upper, 0, 0, width - 1);  
     }
 
-    // relax the edge for vertical 
-    private void relaxVertical(double[][] disTo, int[][] edgeTo, int x, int y) {
-        double e = energy(x, y);
-        disTo[x][y] = e + disTo[x][y-1];
-        edgeTo[x][y] = 0;
+    // finds the vertical seam of the buffers within band columns of the guide;
+    // the steps of row y are kept at y * span, so the scratch is O(H * band)
+    private int[] findSeam(int[] guide, int band) {
+        int span = (int) Math.min(width, 2L * band + 1);
+        ensureBandScratch(span);
+        int from = Math.max(0, guide[0] - band), to = Math.min(width - 1, guide[0] + band);
+        Arrays.fill(upper, from, to + 1, 0.0);
+        for (int y = 1; y < height; y++) {
+            int above = from, aboveTo = to;
+            from = Math.max(0, guide[y] - band);
+            to   = Math.min(width - 1, guide[y] + band);
+            for (int x = from, e = y * span; x <= to; x++, e++)
+                edgeTo[e] = relax(upper, lower, x, y, above, aboveTo);
+            double[] t = upper;
+            upper = lower;
+            lower = t;
+        }
 
-        if (x > 0 && disTo[x-1][y-1] + e < disTo[x][y]) {
-            disTo[x][y] = disTo[x-1][y-1] + e;
-            edgeTo[x][y] = -1; 
+        int[] seam = new int[height];
+        int min = from;
+        for (int x = from; x <= to; x++) {
+            if (upper[x] < upper[min])
+                min = x;
         }
-        if (x < width() - 1 && disTo[x+1][y-1] + e < disTo[x][y]) {
-            disTo[x][y] = disTo[x+1][y-1] + e;
-            edgeTo[x][y] = 1;
+        for (int y = height - 1; y > 0; y--) {
+            seam[y] = min;
+            min += edgeTo[y * span + min - Math.max(0, guide[y] - band)];
         }
+        seam[0] = min;
+        return seam;
     }
 
-    // relax the edge for horizontal
-    private void relaxHorizontal(double[][] disTo, int[][] edgeTo, int x, int y) {
-        double e = energy(x, y);
-        disTo[x][y] = e + disTo[x-1][y];
-        edgeTo[x][y] = 0;
+    // finds the vertical seam of the buffers shrunk by the given factor and
+    // refines it at full resolution within the band
+    private int[] findApproximateSeam(int factor, int band) {
+        if (factor == 1) return findSeam();
+        int[] coarse = shrink(factor).findSeam();
 
-        if (y > 0 && disTo[x-1][y-1] + e < disTo[x][y]) {
-            disTo[x][y] = disTo[x-1][y-1] + e;
-            edgeTo[x][y] = -1; 
+        // the coarse seam moves at most one block per block of rows, so 
+        // moving towards the next block's centre one column per row keeps
+        // the guide a valid seam
+        int[] guide = new int[height];
+        for (int y = 0; y < height; y++) {
+            int cy = y / factor;
+            int dx = cy + 1 < coarse.length ? coarse[cy + 1] - coarse[cy] : 0;
+            int x = coarse[cy] * factor + factor / 2 + dx * (y % factor);
+            guide[y] = Math.min(width - 1, x);
         }
-        if (y < height() - 1 && disTo[x-1][y+1] + e < disTo[x][y]) {
-            disTo[x][y] = disTo[x-1][y+1] + e;
-            edgeTo[x][y] = 1;
+        return findSeam(guide, band);
+    }
+
+    // returns a carver of the buffers shrunk by the given factor, each pixel
+    // the channel by channel average of a factor-by-factor block; the alpha 
+    // byte is the one of the block's first pixel
+    private SeamCarverDP shrink(int factor) {
+        int w = (width + factor - 1) / factor, h = (height + factor - 1) / factor;
+        int[] coarse = new int[w * h];
+        int[] r = new int[w], g = new int[w], b = new int[w];
+        for (int cy = 0; cy < h; cy++) {
+            int top = cy * factor, bottom = Math.min(height, top + factor);
+            for (int y = top; y < bottom; y++) {
+                for (int cx = 0, x = 0, i = y * stride; cx < w; cx++) {
+                    int sr = 0, sg = 0, sb = 0;
+                    for (int end = Math.min(width, x + factor); x < end; x++, i++) {
+                        int c = rgb[i];
+                        sr += c >> 16 & 255;
+                        sg += c >> 8 & 255;
+                        sb += c & 255;
+                    }
+                    r[cx] += sr;
+                    g[cx] += sg;
+                    b[cx] += sb;
+                }
+            }
+            for (int cx = 0; cx < w; cx++) {
+                int n = (bottom - top) * (Math.min(width, (cx + 1) * factor) - cx * factor);
+                int alpha = rgb[top * stride + cx * factor] & 0xff000000;
+                coarse[cy * w + cx] = alpha | r[cx] / n << 16 | g[cx] / n << 8 | b[cx] / n;
+                r[cx] = g[cx] = b[cx] = 0;
+            }
         }
+        double[] coarseEnergy = new double[w * h];
+        Arrays.fill(coarseEnergy, Double.NaN);
+        return new SeamCarverDP(coarse, coarseEnergy, w, h, w, function, pool);
     }
 
-    // trace back the vertical seam
-    private int[] traceVerticalSeam(double[][] disTo, int[][] edgeTo) {
-        int[] seam = new int[height()];
-        int width = width(), height = height();
-        int min = 0;
+    // finds up to k disjoint vertical seams of the buffers, as many as 
+    // possible from each cumulative energy table
+    private int[][] findSeams(int k) {
+        ensureScratch(true);
+        Arrays.fill(used, 0, height * stride, false);
+        int[][] seams = new int[k][];
+        int found = 0, before = -1;
+        while (found < k && found > before) {
+            before = found;
+            if (found == 0) {
+                Arrays.fill(disTo, 0, width, 0.0);
+                for (int y = 1; y < height; y++)
+                    relaxRow(disTo, (y - 1) * stride, disTo, y * stride, y);
+            }
+            else {
+                // the next table routes around the pixels already taken
+                for (int x = 0; x < width; x++)
+                    if (used[x]) disTo[x] = Double.POSITIVE_INFINITY;
+                for (int y = 1, row = stride; y < height; y++, row += stride) {
+                    for (int x = 0; x < width; x++) {
+                        if (used[row + x]) disTo[row + x] = Double.POSITIVE_INFINITY;
+                        else               relax(disTo, row - stride, disTo, row, x, y);
+                    }
+                }
+            }
+            found = traceSeams(seams, found);
+        }
+        return Arrays.copyOf(seams, found);
+    }
 
-        // finding minimum energy pixel from the bottom border
+    // traces disjoint seams from the bottom pixels, cheapest first, until
+    // there are k seams, and returns the number of seams
+    private int traceSeams(int[][] seams, int found) {
+        int last = (height - 1) * stride;
+        sortBottomRow(last);
+        long column = (1L << columnBits()) - 1;
+
+        // a blocked candidate leaves its array to the next one
+        int[] seam = null;
+        for (int c = 0; c < width && found < seams.length; c++) {
+            int x = (int) (order[c] & column);
+            if (used[last + x] || disTo[last + x] == Double.POSITIVE_INFINITY) continue;
+            if (seam == null) seam = new int[height];
+            for (int y = height - 1; y > 0 && x >= 0; y--) {
+                seam[y] = x;
+                int above = (y - 1) * stride;
+                int next = x + edgeTo[y * stride + x];
+                if (used[above + next]) {
+                    // the cheapest free pixel above, if any
+                    next = -1;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int px = x + dx;
+                        if (px >= 0 && px < width && !used[above + px] 
+                            && disTo[above + px] < Double.POSITIVE_INFINITY
+                            && (next < 0 || disTo[above + px] < disTo[above + next]))
+                            next = px;
+                    }
+                }
+                x = next;
+            }
+            if (x < 0) continue;
+            seam[0] = x;
+            for (int y = 0; y < height; y++)
+                used[y * stride + seam[y]] = true;
+            seams[found++] = seam;
+            seam = null;
+        }
+        return found;
+    }
+
+    // sorts the columns of the bottom row at offset last into order by their
+    // cumulative energy, ties by column: the keys are the order-preserving
+    // bits of the energy with the column in the low bits, and keys that 
+    // agree above the column bits are then put in exact order
+    private void sortBottomRow(int last) {
+        int bits = columnBits();
+        long column = (1L << bits) - 1;
         for (int x = 0; x < width; x++) {
-            if (disTo[x][height-1] < disTo[min][height-1])
-                min = x;
+            long key = Double.doubleToLongBits(disTo[last + x]);
+            key ^= (key >> 63) & Long.MAX_VALUE;
+            order[x] = key >> bits << bits | x;
         }
-        
-        // finding the path from the minimum energy pixel to top 
-        for (int y = height - 1; y >= 0; y--) {
-            seam[y] = min;
-            min = min + edgeTo[min][y];
+        Arrays.sort(order, 0, width);
+
+        for (int c = 1; c < width; c++) {
+            long key = order[c];
+            double d = disTo[last + (int) (key & column)];
+            int j = c;
+            for (; j > 0 && order[j - 1] >> bits == key >> bits; j--) {
+                if (disTo[last + (int) (order[j - 1] & column)] <= d) break;
+                order[j] = order[j - 1];
+            }
+            order[j] = key;
+        }
+    }
+
+    // returns the number of low key bits holding a column of the buffers
+    private int columnBits() {
+        return 32 - Integer.numberOfLeadingZeros(width - 1);
+    }
+
+    // inserts k seams in the given direction, at most half the width per pass
+    private void enlarge(boolean horizontal, int k) {
+        if (k == 0) return;
+        orient(horizontal);
+        int capacity = (width + k) * height;
+        while (k > 0) {
+            int[][] seams = findSeams(Math.min(k, Math.max(1, width / 2)));
+            insertSeams(seams, capacity);
+            k -= seams.length;
+        }
+    }
+
+    // removes k seams in the given direction, updating the cumulative energy table incrementally
+    private void carve(boolean horizontal, int k) {
+        if (k == 0) return;
+        orient(horizontal);
+        ensureScratch(true);
+        Arrays.fill(disTo, 0, width, 0.0);
+        for (int y = 1; y < height; y++)
+            relaxRow(disTo, (y - 1) * stride, disTo, y * stride, y);
+
+        for (int n = 0; n < k; n++) {
+            int[] seam = traceSeam(disTo, (height - 1) * stride, 0, width - 1);
+            shiftRows(disTo, seam);
+            shiftRows(edgeTo, seam);
+            removeSeam(seam);
+
+            // the entries of row y can only change next to the seam, as far
+            // as the energies are invalidated, or below the entries that 
+            // changed in row y - 1
+            int reach = Math.max(1, function.radius());
+            int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+            for (int y = 1; y < height; y++) {
+                int from = Math.max(0, Math.min(lo - 1, seam[y] - 1 - reach));
+                int to   = Math.min(width - 1, Math.max(hi + 1, seam[y] + reach));
+                lo = Integer.MAX_VALUE;
+                hi = Integer.MIN_VALUE;
+                for (int x = from, i = y * stride + from; x <= to; x++, i++) {
+                    double old = disTo[i];
+                    relax(disTo, (y - 1) * stride, disTo, y * stride, x, y);
+                    if (disTo[i] != old) {
+                        lo = Math.min(lo, x);
+                        hi = x;
+                    }
+                }
+            }
         }
-        return seam;
     }
 
-    // trace back the horizontal seam
-    private int[] traceHorizontalSeam(double[][] disTo, int[][] edgeTo) {
-        int[] seam = new int[width()];
-        int width = width(), height = height();
-        int min = 0;
+    // removes the vertical seam of the buffers
+    private void removeSeam(int[] seam) {
+        shiftRows(rgb, seam);
+        shiftRows(energy, seam);
+        width--;
+
+        // avoiding energy recalculation, resetting only affected pixels
+        int r = function.radius();
+        for (int y = 0; y < height; y++) {
+            int lo = seam[y], hi = seam[y];
+            if (y > 0)          { lo = Math.min(lo, seam[y - 1]); hi = Math.max(hi, seam[y - 1]); }
+            if (y < height - 1) { lo = Math.min(lo, seam[y + 1]); hi = Math.max(hi, seam[y + 1]); }
+            invalidate(y, lo - r, hi + r - 1);
+        }
+    }
 
-        // finding minimum energy pixel in the right border
+    // removes the disjoint vertical seams of the buffers in one pass per row
+    private void removeSeams(int[][] seams) {
+        int k = seams.length, r = function.radius();
+        if (k == 0) return;
+        int[] columns = new int[k];
         for (int y = 0; y < height; y++) {
-            if (disTo[width-1][y] < disTo[width-1][min])
-                min = y;
+            int row = y * stride;
+            for (int j = 0; j < k; j++)
+                columns[j] = seams[j][y];
+            Arrays.sort(columns);
+
+            // moving the runs between the seam pixels left over the gaps
+            for (int j = 0; j < k; j++) {
+                int from = columns[j] + 1;
+                int to = j + 1 < k ? columns[j + 1] : width;
+                System.arraycopy(rgb, row + from, rgb, row + from - j - 1, to - from);
+                System.arraycopy(energy, row + from, energy, row + from - j - 1, to - from);
+            }
+
+
+            // avoiding energy recalculation, resetting only affected pixels;
+            // a seam may step one column either way into the next row
+            for (int j = 0; r > 0 && j < k; j++) {
+                int x = columns[j] - j;
+                for (int c = Math.max(0, x - 1 - r); c <= Math.min(width - k - 1, x + r); c++)
+                    energy[row + c] = Double.NaN;
+            }
+        }
+        width -= k;
+    }
+
+    // inserts after each pixel of the disjoint vertical seams of the buffers
+    // the average of the pixel and its right neighbour, writing into the 
+    // spare buffers, grown to the given capacity if they are too small, and
+    // swapping them in
+    private void insertSeams(int[][] seams, int capacity) {
+        int wider = width + seams.length;
+        if (spareRgb == null || spareRgb.length < wider * height) {
+            spareRgb = new int[Math.max(capacity, wider * height)];
+            spareEnergy = new double[spareRgb.length];
+        }
+        insertSeams(rgb, width, height, stride, seams, spareRgb);
+        Arrays.fill(spareEnergy, 0, wider * height, Double.NaN);
+        int[] t = rgb;
+        rgb = spareRgb;
+        spareRgb = t;
+        double[] e = energy;
+        energy = spareEnergy;
+        spareEnergy = e;
+        width = wider;
+        stride = wider;
+    }
+
+    // writes into out the pixels of width by height at the given stride with
+    // the average of each pixel of the disjoint vertical seams and its right
+    // neighbour inserted after it, row by row at the new width
+    static void insertSeams(int[] rgb, int width, int height, int stride, int[][] seams, int[] out) {
+        int k = seams.length, wider = width + k;
+        int[] columns = new int[k];
+        for (int y = 0; y < height; y++) {
+            for (int j = 0; j < k; j++)
+                columns[j] = seams[j][y];
+            Arrays.sort(columns);
+
+            int row = y * stride, to = y * wider, from = 0;
+            for (int j = 0; j < k; j++) {
+                int x = columns[j];
+                System.arraycopy(rgb, row + from, out, to, x + 1 - from);
+                to += x + 1 - from;
+                out[to++] = average(rgb[row + x], rgb[row + Math.min(x + 1, width - 1)]);
+                from = x + 1;
+            }
+            System.arraycopy(rgb, row + from, out, to, width - from);
+        }
+    }
+
+    // returns the channel by channel average of the pixels
+    private static int average(int a, int b) {
+        int r = ((a >> 16 & 255) + (b >> 16 & 255)) >> 1;
+        int g = ((a >> 8 & 255) + (b >> 8 & 255)) >> 1;
+        int bl = ((a & 255) + (b & 255)) >> 1;
+        return (a & 0xff000000) | r << 16 | g << 8 | bl;
+    }
+
+    // shifts each row of the buffer left over the seam pixel in place
+    private void shiftRows(Object buffer, int[] seam) {
+        for (int y = 0; y < height; y++) {
+            int i = y * stride + seam[y];
+            System.arraycopy(buffer, i + 1, buffer, i, width - seam[y] - 1);
+        }
+    }
+
+    // transposes the buffers if they are not in the given orientation
+    private void orient(boolean horizontal) {
+        if (transposed == horizontal) return;
+        if (spareRgb == null || spareRgb.length < width * height) {
+            spareRgb = new int[rgb.length];
+            spareEnergy = new double[energy.length];
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                spareRgb[x * height + y] = rgb[y * stride + x];
+                spareEnergy[x * height + y] = energy[y * stride + x];
+            }
+        }
+        int[] t = rgb;
+        rgb = spareRgb;
+        spareRgb = t;
+        double[] e = energy;
+        energy = spareEnergy;
+        spareEnergy = e;
+        stride = height;
+        height = width;
+        width = stride;
+        transposed = horizontal;
+    }
+
+    // returns the energy of the pixel at column x and row y of the buffers
+    private double energyAt(int x, int y) {
+        // caching the energy calculation
+        int i = y * stride + x;
+        if (Double.isNaN(energy[i]))
+            energy[i] = function.energy(rgb, width, height, stride, x, y);
+        return energy[i];
+    }
+
+    // returns the cost of the step into pixel (x, y) from (x + dx, y - 1)
+    private double transition(int x, int y, int dx) {
+        return function.transition(rgb, width, height, stride, x, y, dx);
+    }
+
+    // resets the cached energies of the columns [from, to] of row y
+    private void invalidate(int y, int from, int to) {
+        for (int x = Math.max(0, from); x <= Math.min(width - 1, to); x++)
+            energy[y * stride + x] = Double.NaN;
+    }
+
+    // grows the scratch arrays to the buffers; the full table is needed 
+    // only to keep the cumulative energies from one seam to the next
+    private void ensureScratch(boolean full) {
+        int n = height * stride;
+        if (edgeTo.length < n) edgeTo = new byte[n];
+        if (full && disTo.length < n) disTo = new double[n];
+        if (full && used.length < n) used = new boolean[n];
+        if (full && order.length < stride) order = new long[stride];
+        if (upper.length < stride) {
+            upper = new double[stride];
+            lower = new double[stride];
+        }
+    }
+
+    // grows the scratch arrays for a banded search of span columns per row
+    private void ensureBandScratch(int span) {
+        if (edgeTo.length < height * span) edgeTo = new byte[height * span];
+        if (upper.length < stride) {
+            upper = new double[stride];
+            lower = new double[stride];
+        }
+    }
+
+    // relaxes row y of the buffers, with the cumulative energies of the row
+    // above at offset a of above and those of row y at offset r of row
+    private void relaxRow(double[] above, int a, double[] row, int r, int y) {
+        if (pool == null || width < PARALLEL_WIDTH) {
+            for (int x = 0; x < width; x++)
+                relax(above, a, row, r, x, y);
+            return;
+        }
+
+        // a row depends only on the row above, so its columns are
+        // independent and invoke returns only once the whole row is done
+        pool.invoke(new RowTask(above, a, row, r, y, 0, width));
+    }
+
+    // relax the edges into pixel (x, y) of the buffers, with the cumulative
+    // energies of the row above at offset a of above and those of row y at 
+    // offset r of row
+    private void relax(double[] above, int a, double[] row, int r, int x, int y) {
+        double e = energyAt(x, y);
+        int i = r + x, p = a + x;
+        row[i] = e + above[p] + transition(x, y, 0);
+        byte edge = 0;
+
+        if (x > 0) {
+            double d = above[p-1] + e + transition(x, y, -1);
+            if (d < row[i]) {
+                row[i] = d;
+                edge = -1;
+            }
+        }
+        if (x < width - 1) {
+            double d = above[p+1] + e + transition(x, y, 1);
+            if (d < row[i]) {
+                row[i] = d;
+                edge = 1;
+            }
+        }
+        edgeTo[y * stride + x] = edge;
+    }
+
+    // relax the edges into pixel (x, y) of the buffers from the columns
+    // [from, to] of the row above, the others being out of the band, and
+    // returns the step to the row above
+    private byte relax(double[] above, double[] row, int x, int y, int from, int to) {
+        double e = energyAt(x, y);
+        row[x] = x >= from && x <= to ? e + above[x] + transition(x, y, 0) : Double.POSITIVE_INFINITY;
+        byte edge = 0;
+
+        if (x > from && x - 1 <= to) {
+            double d = above[x-1] + e + transition(x, y, -1);
+            if (d < row[x]) {
+                row[x] = d;
+                edge = -1;
+            }
+        }
+        if (x < to && x + 1 >= from) {
+            double d = above[x+1] + e + transition(x, y, 1);
+            if (d < row[x]) {
+                row[x] = d;
+                edge = 1;
+            }
+        }
+        return edge;
+    }
+
+    // trace back the vertical seam of the buffers ending in the columns 
+    // [from, to], the cumulative energies of the bottom row at offset last
+    private int[] traceSeam(double[] bottom, int last, int from, int to) {
+        int[] seam = new int[height];
+        int min = from;
+
+        // finding minimum energy pixel from the bottom border
+        for (int x = from; x <= to; x++) {
+            if (bottom[last + x] < bottom[last + min])
+                min = x;
         }
         
-        // finding the path from the minimum energy pixel to left border
-        for (int x = width - 1; x >= 0; x--) {
-            seam[x] = min;
-            min = min + edgeTo[x][min];
+        // finding the path from the minimum energy pixel to top 
+        for (int y = height - 1; y >= 0; y--) {
+            seam[y] = min;
+            min = min + edgeTo[y * stride + min];
         }
         return seam;
     }
@@ -266,17 +962,17 @@ public class SeamCarverDP {
         }
     }
 
-    // returns the gradient of the pixel
-    private int gradient(int x, int y) {
-        int r = (y >> 16 & 255) - (x >> 16 & 255);
-        int g = (y >> 8 & 255) - (x >> 8 & 255);
-        int b = (y & 255) - (x & 255);
-        return r * r + g * g + b * b;
-    }
-
-    // returns true if border pixel
-    private boolean isBorder(int x, int y) {
-        return x == 0 || y == 0 || x == width() - 1 || y == height() - 1; 
+    // throw IllegalArgumentException if two seams of the buffers share a pixel
+    private void validateDisjoint(int[][] seams) {
+        int[] columns = new int[seams.length];
+        for (int y = 0; y < height; y++) {
+            for (int j = 0; j < seams.length; j++)
+                columns[j] = seams[j][y];
+            Arrays.sort(columns);
+            for (int j = 1; j < columns.length; j++)
+                if (columns[j] == columns[j - 1])
+                    throw new IllegalArgumentException("Seams share a pixel.");
+        }
     }
 
     // throw IllegalArgumentException if pixel out of range
@@ -285,25 +981,85 @@ public class SeamCarverDP {
             throw new IllegalArgumentException("Out of prescribed range.");
     }
 
+    // relaxes the columns [from, to) of a row, split into chunks
+    private final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double[] above, row;
+        private final int a, r, y, from, to;
+
+        RowTask(double[] above, int a, double[] row, int r, int y, int from, int to) {
+            this.above = above;
+            this.row   = row;
+            this.a    = a;
+            this.r    = r;
+            this.y    = y;
+            this.from = from;
+            this.to   = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                for (int x = from; x < to; x++)
+                    relax(above, a, row, r, x, y);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(above, a, row, r, y, from, mid), 
+                      new RowTask(above, a, row, r, y, mid, to));
+        }
+    }
+
+    // compares n approximate vertical seams with the exact ones, removing 
+    // the exact seam after each, and prints the costs and search times
+    private static void compare(SeamCarverDP carver, int factor, int band, int n) {
+        double exactCost = 0.0, approximateCost = 0.0, exactTime = 0.0, approximateTime = 0.0;
+        for (int i = 0; i < n; i++) {
+            Stopwatch stopwatch = new Stopwatch();
+            int[] exact = carver.findVerticalSeam();
+            exactTime += stopwatch.elapsedTime();
+            stopwatch = new Stopwatch();
+            int[] approximate = carver.findApproximateVerticalSeam(factor, band);
+            approximateTime += stopwatch.elapsedTime();
+            for (int y = 0; y < exact.length; y++) {
+                exactCost += carver.energy(exact[y], y);
+                approximateCost += carver.energy(approximate[y], y);
+            }
+            carver.removeVerticalSeam(exact);
+        }
+        StdOut.printf("factor %d, band %d, %d seams%n", factor, band, n);
+        StdOut.printf("exact       %.3f s, energy %.1f%n", exactTime, exactCost);
+        StdOut.printf("approximate %.3f s, energy %.1f (%.2fx faster, %.1f%% more energy)%n", 
+                      approximateTime, approximateCost, exactTime / approximateTime, 
+                      100.0 * (approximateCost - exactCost) / exactCost);
+    }
+
     // unit test the code
     public static void main(String[] args) {
         Picture picture = new Picture("images/gojo.jpg");
-        SeamCarverDP seamCarver = new SeamCarverDP(picture);
+        boolean parallel = Arrays.asList(args).contains("-p");
+        boolean forward  = Arrays.asList(args).contains("-f");
+        EnergyFunction function = forward ? new ForwardEnergy() : new DualGradient();
+        SeamCarverDP seamCarver = new SeamCarverDP(picture, function, parallel ? ForkJoinPool.commonPool() : null);
         StdOut.println(seamCarver.width() + "x" + seamCarver.height());
         
+        if (Arrays.asList(args).contains("-a")) {
+            compare(seamCarver, 4, 8, 20);
+            return;
+        }
+
         int w = StdIn.readInt();
         int h = StdIn.readInt();
         
-        for (int i = 0; i < w; i++) {
-            int[] seam = seamCarver.findVerticalSeam();
-            seamCarver.removeVerticalSeam(seam);
+        Stopwatch stopwatch = new Stopwatch();
+        Picture carved = seamCarver.carveTo(seamCarver.width() - w, seamCarver.height() - h);
+        StdOut.println(carved.width() + "x" + carved.height() + " in " + stopwatch.elapsedTime() + " s");
+        long collections = 0, pause = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += gc.getCollectionCount();
+            pause += gc.getCollectionTime();
         }
-        
-        for (int i = 0; i < h; i++) {
-            int[] seam = seamCarver.findHorizontalSeam();
-            seamCarver.removeHorizontalSeam(seam);
-        }
-
-        seamCarver.picture().show();
+        StdOut.println(collections + " collections, " + pause + " ms in GC");
+        carved.show();
     }
 }
\ No newline at end of file
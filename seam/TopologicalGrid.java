@@ -1,15 +1,19 @@
-import edu.princeton.cs.algs4.Stack;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * The class TopologicalGrid provides methods to get topological order of the 
- * pixel grid in vertical or horizontal.
+ * pixel grid in vertical or horizontal. Every edge of the vertical DAG goes
+ * down one row and every edge of the horizontal DAG goes right one column, so
+ * the rows from top to bottom and the columns from left to right are valid
+ * topological orders. The iterators return the same int[] {x, y} cursor for
+ * every pixel, updated in place, so a walk allocates nothing per pixel.
  * 
  * @author Karthikeyan
  */
 public class TopologicalGrid {
     private final int width;
     private final int height;
-    private boolean[][] marked;
 
     /**
      * Initialises the width and height.
@@ -23,51 +27,55 @@ public class TopologicalGrid {
     
     /**
      * Returns the sequences of indices in topological order of vertical DAG of
-     * pixel grid.
+     * pixel grid, row by row. The returned array is reused by the iterator.
      * @return returns sequences of indices in topological order of vertical 
      * DAG of pixel grid
      */
     public Iterable<int[]> vertical() {
-        Stack<int[]> order = new Stack<>();
-        marked = new boolean[width][height];
-        for (int x = 0; x < width; x++)
-            DFSVertical(x, 0, order);
-        return order;
+        return () -> new Cursor(true);
     }
 
     /**
      * Returns the sequences of indices in topological order of horizontal DAG
-     * of the pixel grid.
+     * of the pixel grid, column by column. The returned array is reused by the
+     * iterator.
      * @return returns the sequences of indices in topological order of 
      * horizontal DAG of the pixel grid.
      */
     public Iterable<int[]> horizontal() {
-        Stack<int[]> order = new Stack<>();
-        marked = new boolean[width][height];
-        for (int y = 0; y < height; y++)
-            DFSHorizontal(0, y, order);
-        return order;
+        return () -> new Cursor(false);
     }
 
-    // DFS for vertical DAG
-    private void DFSVertical(int x, int y, Stack<int[]> order) {
-        marked[x][y] = true;
-        if (y < height - 1) {
-            if (x < width - 1 && !marked[x + 1][y + 1]) DFSVertical(x + 1, y + 1, order);
-            if (x > 0 && !marked[x - 1][y + 1])         DFSVertical(x - 1, y + 1, order);
-            if (!marked[x][y + 1])                      DFSVertical(x, y + 1, order);
+    // walks the grid row by row or column by column
+    private class Cursor implements Iterator<int[]> {
+        private final int[] indices = new int[2];
+        private final boolean rowMajor;
+        private int x, y;    // the next pixel
+
+        Cursor(boolean rowMajor) {
+            this.rowMajor = rowMajor;
+            if (width <= 0 || height <= 0) x = y = Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return x < width && y < height;
         }
-        order.push(new int[]{x, y});
-    }
 
-    // DFS for horizontal DAG
-    private void DFSHorizontal(int x, int y, Stack<int[]> order) {
-        marked[x][y] = true;
-        if (x < width - 1) {
-            if (y < height - 1 && !marked[x + 1][y + 1]) DFSHorizontal(x + 1, y + 1, order);
-            if (y > 0 && !marked[x + 1][y - 1])          DFSHorizontal(x + 1, y - 1, order);
-            if (!marked[x + 1][y])                       DFSHorizontal(x + 1, y, order);
+        @Override
+        public int[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            indices[0] = x;
+            indices[1] = y;
+            if (rowMajor && ++x == width) {
+                x = 0;
+                y++;
+            }
+            else if (!rowMajor && ++y == height) {
+                y = 0;
+                x++;
+            }
+            return indices;
         }
-        order.push(new int[]{x, y});
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The class VectorEnergy computes the dual-gradient energy of all interior
+ * pixels of a packed ARGB buffer with the JDK Vector API. Each step loads the
+ * left, right, upper and lower neighbours of a run of pixels as int vectors,
+ * unpacks the red, green and blue channels with lane-wise shifts and masks 
+ * and sums the squared differences. It needs the incubating module, so run 
+ * with --add-modules jdk.incubator.vector; without it loading this class 
+ * fails with a NoClassDefFoundError.
+ *
+ * @author Karthikeyan
+ */
+public final class VectorEnergy {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    // static methods only
+    private VectorEnergy() { }
+
+    /**
+     * Returns the number of pixels handled by one vector step.
+     * @return returns the number of int lanes of the preferred species
+     */
+    public static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Computes the energy of every interior pixel of the buffer. The border
+     * pixels are left untouched.
+     * @param rgb the packed pixels, row y at offset y * stride
+     * @param energy the energies, laid out as rgb
+     * @param width the number of pixels in a row
+     * @param height the number of rows
+     * @param stride the row length of the buffers
+     * @throws IllegalArgumentException if a buffer is null or too small
+     */
+    public static void compute(int[] rgb, double[] energy, int width, int height, int stride) {
+        if (rgb == null || energy == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        if (width < 0 || height < 0 || stride < width 
+            || (long) height * stride > Math.min(rgb.length, energy.length))
+            throw new IllegalArgumentException("Buffer too small.");
+        if (width < 3 || height < 3) return;
+
+        int[] squares = new int[width];
+        int bound = 1 + SPECIES.loopBound(width - 2);
+        for (int y = 1; y < height - 1; y++) {
+            int row = y * stride;
+            int x = 1;
+            for (; x < bound; x += SPECIES.length()) {
+                int i = row + x;
+                IntVector left  = IntVector.fromArray(SPECIES, rgb, i - 1);
+                IntVector right = IntVector.fromArray(SPECIES, rgb, i + 1);
+                IntVector up    = IntVector.fromArray(SPECIES, rgb, i - stride);
+                IntVector down  = IntVector.fromArray(SPECIES, rgb, i + stride);
+                gradient(left, right).add(gradient(up, down)).intoArray(squares, x);
+            }
+            for (; x < width - 1; x++) {
+                int i = row + x;
+                squares[x] = gradient(rgb[i - 1], rgb[i + 1]) + gradient(rgb[i - stride], rgb[i + stride]);
+            }
+            for (x = 1; x < width - 1; x++)
+                energy[row + x] = Math.sqrt(squares[x]);
+        }
+    }
+
+    // returns the squared colour differences of the pixels, lane by lane
+    private static IntVector gradient(IntVector a, IntVector b) {
+        IntVector r = channel(b, 16).sub(channel(a, 16));
+        IntVector g = channel(b, 8).sub(channel(a, 8));
+        IntVector bl = channel(b, 0).sub(channel(a, 0));
+        return r.mul(r).add(g.mul(g)).add(bl.mul(bl));
+    }
+
+    // returns the 8-bit channel at the given shift of each lane
+    private static IntVector channel(IntVector v, int shift) {
+        return v.lanewise(VectorOperators.LSHR, shift).and(255);
+    }
+
+    // returns the squared colour difference of the pixels
+    private static int gradient(int a, int b) {
+        int r = (b >> 16 & 255) - (a >> 16 & 255);
+        int g = (b >> 8 & 255) - (a >> 8 & 255);
+        int bl = (b & 255) - (a & 255);
+        return r * r + g * g + bl * bl;
+    }
+}
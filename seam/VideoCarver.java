@@ -0,0 +1,210 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * The class VideoCarver retargets the frames of a video to a smaller width
+ * with a single SeamCarverDP whose buffers are reused from frame to frame.
+ * Consecutive frames are similar, so each seam of a frame is searched only
+ * within a band around the seam removed at the same step from the previous
+ * frame, which keeps the seams from jumping between frames and relaxes only
+ * the pixels in the band. A full search is made on every key frame. Decoding,
+ * carving and encoding run on their own threads, connected by bounded queues.
+ * An instance must not be shared between threads.
+ * 
+ * @author Karthikeyan
+ */
+public class VideoCarver {
+    private static final Picture END = new Picture(1, 1);  // marks the end of the frames
+    private static final long POLL_MILLIS = 100;           // wait before checking the other stage
+    private final int targetWidth;      // width of the carved frames
+    private final int band;             // columns a seam may stray from the previous frame's
+    private final int keyInterval;      // frames between full seam searches
+    private final int capacity;         // frames buffered between two stages
+    private SeamCarverDP carver;        // carver reused for every frame
+    private int[][] seams;              // seams removed from the previous frame
+
+    /**
+     * Initialises the video carver.
+     * @param targetWidth the width of the carved frames
+     * @param band the number of columns a seam may stray from the seam of the
+     * previous frame
+     * @param keyInterval the number of frames from one full search to the next
+     * @param capacity the number of frames buffered between two stages
+     * @throws IllegalArgumentException if target width, key interval or
+     * capacity less than one, or band negative
+     */
+    public VideoCarver(int targetWidth, int band, int keyInterval, int capacity) {
+        if (targetWidth < 1 || band < 0 || keyInterval < 1 || capacity < 1)
+            throw new IllegalArgumentException("Invalid video carver parameters.");
+        this.targetWidth = targetWidth;
+        this.band = band;
+        this.keyInterval = keyInterval;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Carves the frames in order and hands the carved frames to the sink in
+     * the same order. The frames are read on one thread and the sink is called
+     * on another while the calling thread carves.
+     * @param frames the frames, all at least as wide as the target width
+     * @param sink the consumer of the carved frames
+     * @throws IllegalArgumentException if an argument is null or a frame is 
+     * narrower than the target width
+     * @return returns the number of frames carved
+     */
+    public int carve(Iterator<Picture> frames, Consumer<Picture> sink) {
+        if (frames == null || sink == null)
+            throw new IllegalArgumentException("Null arguments not allowed.");
+        BlockingQueue<Picture> decoded = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Picture> carved  = new ArrayBlockingQueue<>(capacity);
+        ExecutorService stages = Executors.newFixedThreadPool(2);
+        seams = null;
+
+        try {
+            Future<?> decoder = stages.submit(() -> {
+                while (frames.hasNext()) 
+                    decoded.put(frames.next());
+                decoded.put(END);
+                return null;
+            });
+            Future<?> encoder = stages.submit(() -> {
+                for (Picture frame = carved.take(); frame != END; frame = carved.take())
+                    sink.accept(frame);
+                return null;
+            });
+
+            int n = 0;
+            for (Picture frame = take(decoded, decoder); frame != END; frame = take(decoded, decoder))
+                put(carved, carveFrame(frame, n++), encoder);
+            put(carved, END, encoder);
+            await(encoder);
+            return n;
+        }
+        finally {
+            stages.shutdownNow();
+        }
+    }
+
+    // carves the frame, searching near the seams of the previous frame
+    private Picture carveFrame(Picture frame, int index) {
+        if (frame.width() < targetWidth)
+            throw new IllegalArgumentException("Frame narrower than target width.");
+        if (carver == null) carver = new SeamCarverDP(frame);
+        else                carver.load(frame);
+
+        int k = frame.width() - targetWidth;
+        boolean key = index % keyInterval == 0 || seams == null || seams.length != k
+                      || k > 0 && seams[0].length != frame.height();
+        if (key) seams = new int[k][];
+        for (int i = 0; i < k; i++) {
+            seams[i] = key ? carver.findVerticalSeam() : carver.findVerticalSeam(seams[i], band);
+            carver.removeVerticalSeam(seams[i]);
+        }
+        return carver.picture();
+    }
+
+    // takes the next frame from the queue, failing if its producer failed
+    private static Picture take(BlockingQueue<Picture> queue, Future<?> producer) {
+        try {
+            while (true) {
+                Picture frame = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (frame != null) return frame;
+                if (producer.isDone() && queue.isEmpty()) {
+                    await(producer);
+                    throw new IllegalStateException("Frames ended without an end marker.");
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a frame.", e);
+        }
+    }
+
+    // puts the frame in the queue, failing if its consumer failed
+    private static void put(BlockingQueue<Picture> queue, Picture frame, Future<?> consumer) {
+        try {
+            while (!queue.offer(frame, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (consumer.isDone()) {
+                    await(consumer);
+                    throw new IllegalStateException("Frame consumer stopped early.");
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a frame.", e);
+        }
+    }
+
+    // waits for the stage, rethrowing its failure
+    private static void await(Future<?> stage) {
+        try {
+            stage.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a stage.", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) 
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // returns n synthetic frames of a textured scene panning to the right
+    private static Iterator<Picture> panning(int width, int height, int n) {
+        return new Iterator<Picture>() {
+            private int t;
+
+            @Override
+            public boolean hasNext() {
+                return t < n;
+            }
+
+            @Override
+            public Picture next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Picture frame = new Picture(width, height);
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        int u = x + 4 * t;
+                        int r = (u * 7 ^ y * 3) & 255, g = (u / 5 + y / 3) & 255;
+                        int b = (u % 97 < 8 || y % 89 < 6) ? 255 : (u * y >> 9) & 127;
+                        frame.setRGB(x, y, r << 16 | g << 8 | b);
+                    }
+                }
+                t++;
+                return frame;
+            }
+        };
+    }
+
+    // test client: carves synthetic 1080p frames and prints the frame rate
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int seams  = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int band   = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        VideoCarver video = new VideoCarver(1920 - seams, band, 30, 4);
+
+
+        Stopwatch stopwatch = new Stopwatch();
+        int n = video.carve(panning(1920, 1080, frames), frame -> { });
+        double seconds = stopwatch.elapsedTime();
+        StdOut.printf("%d frames of 1920x1080 carved to %dx1080 in %.2f s: %.2f fps%n", 
+                      n, 1920 - seams, seconds, n / seconds);
+    }
+}
\ No newline at end of file